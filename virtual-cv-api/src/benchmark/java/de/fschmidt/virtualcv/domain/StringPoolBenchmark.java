@@ -0,0 +1,103 @@
+package de.fschmidt.virtualcv.domain;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Retained heap of the strings of decoded nodes, with realistic vocabularies (technologies,
+ * companies, proficiencies repeating across nodes). Run with {@code ./gradlew stringPoolBenchmark}.
+ * <p>
+ * The pooled run keeps the strings exactly as decoding returned them. The unpooled baseline keeps
+ * a fresh copy of every value, as decoding produced before pooling. Both hold the same number of
+ * references, so the difference in retained heap is the footprint of the string instances.
+ */
+public final class StringPoolBenchmark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private StringPoolBenchmark() {
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        long unpooled = retained(count, true);
+        long pooled = retained(count, false);
+
+        System.out.printf("Strings of %,d nodes: %,d KB unpooled, %,d KB pooled (%d%%)%n",
+            count, unpooled / 1024, pooled / 1024, 100 * pooled / unpooled);
+    }
+
+    private static long retained(int count, boolean copy) throws ReflectiveOperationException {
+        long before = usedAfterGc();
+        List<String> strings = new ArrayList<>();
+        for (CvNodeDto node : decodeNodes(count)) {
+            for (String value : strings(node)) {
+                strings.add(copy ? new String(value) : value);
+            }
+        }
+        long used = usedAfterGc() - before;
+        // Keep the strings reachable until they are measured
+        if (strings.isEmpty()) {
+            throw new IllegalStateException("No strings decoded");
+        }
+        return used;
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static List<CvNodeDto> decodeNodes(int count) {
+        Random random = new Random(42);
+        List<String> technologies = List.of("Java", "Kotlin", "Spring Boot", "PostgreSQL", "Kafka", "Docker",
+            "Kubernetes", "React", "TypeScript", "AWS", "Terraform", "Redis", "gRPC", "GraphQL", "Python");
+        List<String> levels = List.of("beginner", "intermediate", "advanced", "expert");
+        List<CvNodeDto> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String parentId = "group-" + (i / 50);
+            if (i % 2 == 0) {
+                String json = "{\"company\":\"Company " + random.nextInt(500) + "\","
+                    + "\"dateRange\":\"" + (2000 + random.nextInt(20)) + " - Present\","
+                    + "\"location\":\"" + (random.nextBoolean() ? "Berlin" : "Remote") + "\","
+                    + "\"technologies\":[\"" + technologies.get(random.nextInt(technologies.size())) + "\",\""
+                    + technologies.get(random.nextInt(technologies.size())) + "\",\""
+                    + technologies.get(random.nextInt(technologies.size())) + "\"]}";
+                nodes.add(new CvNodeDto("item-" + i, NodeType.ITEM, parentId, "Position " + i,
+                    "Built and ran services for team " + i + ", from design to on-call.", json, null, null));
+            } else {
+                String technology = technologies.get(random.nextInt(technologies.size()));
+                String json = "{\"proficiencyLevel\":\"" + levels.get(random.nextInt(levels.size())) + "\","
+                    + "\"yearsOfExperience\":" + random.nextInt(15) + "}";
+                nodes.add(new CvNodeDto("skill-" + i, NodeType.SKILL, parentId, technology, null, json, null, null));
+            }
+        }
+        return nodes;
+    }
+
+    private static List<String> strings(CvNodeDto node) throws ReflectiveOperationException {
+        List<String> strings = new ArrayList<>(List.of(node.id(), node.parentId(), node.label()));
+        if (node.description() != null) {
+            strings.add(node.description());
+        }
+        for (RecordComponent component : node.attributes().getClass().getRecordComponents()) {
+            Object value = component.getAccessor().invoke(node.attributes());
+            if (value instanceof String string) {
+                strings.add(string);
+            } else if (value instanceof List<?> list) {
+                list.forEach(element -> strings.add((String) element));
+            }
+        }
+        return strings;
+    }
+}
@@ -1,13 +1,46 @@
 package de.fschmidt.virtualcv;
 
+import de.fschmidt.virtualcv.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.Arrays;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class VirtualCvApiApplication {
 
 	public static void main(String[] args) {
+		if (args.length > 0 && "migrate".equals(args[0])) {
+			System.exit(migrate(Arrays.copyOfRange(args, 1, args.length)));
+		}
 		SpringApplication.run(VirtualCvApiApplication.class, args);
 	}
 
+	/**
+	 * Migrate-only run mode: applies pending Flyway migrations without starting the web server,
+	 * then exits. Used by the k8s init container so API pods never migrate on their own.
+	 */
+	static int migrate(String[] args) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCvApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(migrateArgs(args));
+		return SpringApplication.exit(context);
+	}
+
+	/**
+	 * The run mode goes in as a command-line argument: default properties rank below
+	 * application.properties, which sets {@code app.run-mode=api}.
+	 */
+	static String[] migrateArgs(String[] args) {
+		String[] migrateArgs = new String[args.length + 1];
+		migrateArgs[0] = "--app.run-mode=migrate";
+		System.arraycopy(args, 0, migrateArgs, 1, args.length);
+		return migrateArgs;
+	}
+
 }
@@ -0,0 +1,20 @@
+package de.fschmidt.virtualcv.command;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Re-parent a node and shift the positions of it and all its descendants by (dx, dy).
+ * <p>
+ * A parent is required: a node cannot be moved to the root, the only root of a CV is its profile.
+ * The shift is bounded, so the shifted positions stay within the integer position columns.
+ */
+public record MoveNodeCommand(
+        @NotBlank String parentId,
+        @Min(-MoveNodeCommand.MAX_SHIFT) @Max(MoveNodeCommand.MAX_SHIFT) int dx,
+        @Min(-MoveNodeCommand.MAX_SHIFT) @Max(MoveNodeCommand.MAX_SHIFT) int dy
+) {
+
+    public static final int MAX_SHIFT = 100_000;
+}
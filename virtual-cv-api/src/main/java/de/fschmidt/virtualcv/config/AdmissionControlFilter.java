@@ -0,0 +1,196 @@
+package de.fschmidt.virtualcv.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for the public read endpoints ({@code GET /cv/**}), applied before any controller
+ * or database work.
+ * <ul>
+ *   <li>Per client (see {@link ClientAddress}) and {@link EndpointClass}, a token bucket limits the
+ *       request rate; an empty bucket answers {@code 429} with {@code Retry-After}.</li>
+ *   <li>Across all clients, at most {@code app.admission.max-concurrent-reads} reads run at once.
+ *       A request that cannot get a slot within {@code app.admission.max-queue-wait} gets
+ *       {@code 503}. Keeping the cap below the connection pool size leaves connections for writes.</li>
+ * </ul>
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    // Beyond this many tracked buckets, buckets that have refilled completely are dropped
+    private static final int MAX_BUCKETS = 10_000;
+
+    /**
+     * Endpoint groups with separate limits, by how expensive they are to serve.
+     */
+    enum EndpointClass {
+        /** Full-text search */
+        SEARCH,
+        /** Typeahead, one request per keystroke but served from memory */
+        SUGGEST,
+        /** Whole-graph reads: all nodes, viewport, layout, rendered CV */
+        GRAPH,
+        /** A single node and its neighbourhood */
+        NODE;
+
+        static EndpointClass of(String path) {
+            if (path.startsWith("/cv/search")) {
+                return SEARCH;
+            }
+            if (path.startsWith("/cv/suggest")) {
+                return SUGGEST;
+            }
+            if (path.startsWith("/cv/nodes/")) {
+                return NODE;
+            }
+            return GRAPH;
+        }
+    }
+
+    /**
+     * Bucket refill rate and size.
+     */
+    record Limit(double perSecond, int burst) {
+
+        long intervalNanos() {
+            return (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        }
+    }
+
+    private final Map<EndpointClass, Limit> limits;
+    private final Semaphore reads;
+    private final long maxQueueWaitNanos;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AdmissionControlFilter(
+            @Value("${app.admission.search.rate:5}") double searchRate,
+            @Value("${app.admission.search.burst:20}") int searchBurst,
+            @Value("${app.admission.suggest.rate:20}") double suggestRate,
+            @Value("${app.admission.suggest.burst:50}") int suggestBurst,
+            @Value("${app.admission.graph.rate:5}") double graphRate,
+            @Value("${app.admission.graph.burst:20}") int graphBurst,
+            @Value("${app.admission.node.rate:20}") double nodeRate,
+            @Value("${app.admission.node.burst:50}") int nodeBurst,
+            @Value("${app.admission.max-concurrent-reads:8}") int maxConcurrentReads,
+            @Value("${app.admission.max-queue-wait:100ms}") Duration maxQueueWait) {
+        this(Map.of(
+                EndpointClass.SEARCH, new Limit(searchRate, searchBurst),
+                EndpointClass.SUGGEST, new Limit(suggestRate, suggestBurst),
+                EndpointClass.GRAPH, new Limit(graphRate, graphBurst),
+                EndpointClass.NODE, new Limit(nodeRate, nodeBurst)), maxConcurrentReads, maxQueueWait);
+    }
+
+    AdmissionControlFilter(Map<EndpointClass, Limit> limits, int maxConcurrentReads, Duration maxQueueWait) {
+        this.limits = Map.copyOf(limits);
+        this.reads = new Semaphore(maxConcurrentReads);
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"GET".equalsIgnoreCase(request.getMethod()) || !(path.equals("/cv") || path.startsWith("/cv/"));
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        EndpointClass endpoint = EndpointClass.of(request.getRequestURI().substring(request.getContextPath().length()));
+        long now = System.nanoTime();
+        long waitNanos = bucket(endpoint, ClientAddress.of(request), now).tryAcquire(now);
+        if (waitNanos > 0) {
+            reject(response, 429, waitNanos, "Too many requests", "RATE_LIMITED");
+            return;
+        }
+
+        boolean admitted;
+        try {
+            admitted = reads.tryAcquire(maxQueueWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            reject(response, 503, TimeUnit.SECONDS.toNanos(1), "Server is busy", "OVERLOADED");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            reads.release();
+        }
+    }
+
+    private TokenBucket bucket(EndpointClass endpoint, String client, long now) {
+        if (buckets.size() > MAX_BUCKETS) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+        return buckets.computeIfAbsent(endpoint + "|" + client, key -> new TokenBucket(limits.get(endpoint), now));
+    }
+
+    private static void reject(HttpServletResponse response, int status, long retryAfterNanos,
+                               String message, String code) throws IOException {
+        long seconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(status);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"message\":\"" + message + "\",\"code\":\"" + code + "\"}");
+    }
+
+    /**
+     * Lock-free token bucket in its "virtual scheduling" form: instead of a token count it keeps the
+     * time at which the bucket will be full again, so taking a token is a single compare-and-set.
+     */
+    static final class TokenBucket {
+
+        private final long intervalNanos;
+        private final long capacityNanos;
+        private final AtomicLong fullAt;
+
+        TokenBucket(Limit limit, long now) {
+            this.intervalNanos = limit.intervalNanos();
+            this.capacityNanos = intervalNanos * limit.burst();
+            this.fullAt = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                // nanoTime values may wrap, so compare by difference
+                long next = (current - now > 0 ? current : now) + intervalNanos;
+                long excess = next - now - capacityNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return fullAt.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package de.fschmidt.virtualcv.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables {@code @Async} post-commit work (e.g. re-rendering cached pages) on Spring Boot's
+ * default {@code applicationTaskExecutor}.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
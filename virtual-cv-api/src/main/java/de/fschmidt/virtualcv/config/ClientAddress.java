@@ -0,0 +1,22 @@
+package de.fschmidt.virtualcv.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Identifies the client of a request for per-client limits and routing.
+ */
+final class ClientAddress {
+
+    private ClientAddress() {
+    }
+
+    /**
+     * The remote address of the connection. {@code X-Forwarded-For} is deliberately not read here:
+     * any client can send it. Behind a proxy, {@code server.forward-headers-strategy=native} lets the
+     * servlet container resolve it into the remote address, trusting only the hops that come from
+     * {@code server.tomcat.remoteip.internal-proxies}.
+     */
+    static String of(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+}
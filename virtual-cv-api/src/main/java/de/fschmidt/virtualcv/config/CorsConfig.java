@@ -20,7 +20,7 @@ public class CorsConfig {
             "http://localhost:5173"  // Vite dev server
         ));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        config.setAllowedHeaders(List.of("Content-Type", "Accept", "Authorization"));
+        config.setAllowedHeaders(List.of("Content-Type", "Accept", "Authorization", "X-Search-Session"));
         config.setAllowCredentials(false);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,331 @@
+package de.fschmidt.virtualcv.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import de.fschmidt.virtualcv.domain.CategoryAttributes;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.domain.NodeAttributes;
+import de.fschmidt.virtualcv.domain.ProfileAttributes;
+import de.fschmidt.virtualcv.domain.SkillAttributes;
+import de.fschmidt.virtualcv.domain.SkillGroupAttributes;
+import de.fschmidt.virtualcv.dto.CvDataDto;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the graph payload ({@link CvDataDto} or a {@code List<CvNodeDto>}) as protobuf, schema
+ * {@code virtualcv.v1.CvGraph} in {@code src/main/proto/cv_graph.proto}.
+ * <p>
+ * Attribute keys, attribute string values and parent ids repeat on many nodes, so they are written
+ * once into a string table and referenced by index. The encoding is written directly with
+ * {@link CodedOutputStream}, without generated message classes, and attributes straight from their
+ * records (keys and order as in {@link de.fschmidt.virtualcv.domain.NodeAttributesCodec}).
+ * Write-only: imports stay JSON.
+ */
+public class CvGraphProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final MediaType PROTOBUF_STANDARD = new MediaType("application", "protobuf");
+
+    // Field numbers of cv_graph.proto
+    private static final int GRAPH_STRINGS = 1;
+    private static final int GRAPH_NODES = 2;
+    private static final int NODE_ID = 1;
+    private static final int NODE_TYPE = 2;
+    private static final int NODE_PARENT_ID = 3;
+    private static final int NODE_LABEL = 4;
+    private static final int NODE_DESCRIPTION = 5;
+    private static final int NODE_ATTRIBUTES = 6;
+    private static final int NODE_POSITION_X = 7;
+    private static final int NODE_POSITION_Y = 8;
+    private static final int ATTRIBUTE_KEY = 1;
+    private static final int ATTRIBUTE_STRING = 2;
+    private static final int ATTRIBUTE_STRING_LIST = 3;
+    private static final int ATTRIBUTE_INT = 4;
+    private static final int ATTRIBUTE_DOUBLE = 5;
+    private static final int ATTRIBUTE_BOOL = 6;
+    private static final int ATTRIBUTE_JSON = 7;
+    private static final int STRING_LIST_VALUES = 1;
+
+    // Only used for attribute values that have no protobuf field of their own
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public CvGraphProtobufHttpMessageConverter() {
+        super(PROTOBUF, PROTOBUF_STANDARD);
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return CvDataDto.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, @NonNull Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (CvDataDto.class == clazz) {
+            return true;
+        }
+        ResolvableType resolved = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        return List.class.isAssignableFrom(clazz)
+                && resolved.asCollection().getGeneric(0).resolve() == CvNodeDto.class;
+    }
+
+    @Override
+    protected void addDefaultHeaders(@NonNull HttpHeaders headers, @NonNull Object body, MediaType contentType)
+            throws IOException {
+        super.addDefaultHeaders(headers, body, contentType);
+        // Same convention as Spring's ProtobufHttpMessageConverter
+        headers.set("X-Protobuf-Schema", "cv_graph.proto");
+        headers.set("X-Protobuf-Message", "virtualcv.v1.CvGraph");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(@NonNull Object body, Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        List<CvNodeDto> nodes = body instanceof CvDataDto data ? data.nodes() : (List<CvNodeDto>) body;
+        write(nodes, outputMessage.getBody());
+    }
+
+    @Override
+    @NonNull
+    public Object read(@NonNull Type type, Class<?> contextClass, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf input is not supported", inputMessage);
+    }
+
+    @Override
+    @NonNull
+    protected Object readInternal(@NonNull Class<?> clazz, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf input is not supported", inputMessage);
+    }
+
+    /**
+     * Writes one {@code CvGraph} message. Nodes are streamed; only the string table is held until
+     * the end.
+     */
+    public static void write(List<CvNodeDto> nodes, OutputStream out) throws IOException {
+        new GraphWriter(out).write(nodes);
+    }
+
+    // Explicit numbers: the wire values must not change when NodeType is reordered
+    private static int typeNumber(NodeType type) {
+        return switch (type) {
+            case PROFILE -> 1;
+            case CATEGORY -> 2;
+            case ITEM -> 3;
+            case SKILL_GROUP -> 4;
+            case SKILL -> 5;
+        };
+    }
+
+    private static final class GraphWriter {
+
+        private final CodedOutputStream graph;
+        private final StringTable strings = new StringTable();
+        // Nested messages are length-prefixed, so each is written to a reused buffer first
+        private final Buffer nodeBuffer = new Buffer();
+        private final Buffer attributeBuffer = new Buffer();
+        private final CodedOutputStream node = CodedOutputStream.newInstance(nodeBuffer);
+        private final CodedOutputStream attribute = CodedOutputStream.newInstance(attributeBuffer);
+
+        GraphWriter(OutputStream out) {
+            this.graph = CodedOutputStream.newInstance(out);
+        }
+
+        void write(List<CvNodeDto> nodes) throws IOException {
+            for (CvNodeDto dto : nodes) {
+                nodeBuffer.reset();
+                writeNode(dto);
+                node.flush();
+                graph.writeByteArray(GRAPH_NODES, nodeBuffer.bytes(), 0, nodeBuffer.size());
+            }
+            for (String value : strings.values) {
+                graph.writeString(GRAPH_STRINGS, value);
+            }
+            graph.flush();
+        }
+
+        private void writeNode(CvNodeDto dto) throws IOException {
+            node.writeString(NODE_ID, dto.id());
+            if (dto.type() != null) {
+                node.writeEnum(NODE_TYPE, typeNumber(dto.type()));
+            }
+            if (dto.parentId() != null) {
+                node.writeUInt32(NODE_PARENT_ID, strings.index(dto.parentId()));
+            }
+            if (dto.label() != null) {
+                node.writeString(NODE_LABEL, dto.label());
+            }
+            if (dto.description() != null) {
+                node.writeString(NODE_DESCRIPTION, dto.description());
+            }
+            if (dto.attributes() != null) {
+                writeAttributes(dto.attributes());
+            }
+            if (dto.positionX() != null) {
+                node.writeSInt32(NODE_POSITION_X, dto.positionX());
+            }
+            if (dto.positionY() != null) {
+                node.writeSInt32(NODE_POSITION_Y, dto.positionY());
+            }
+        }
+
+        // Same keys and order as NodeAttributesCodec.write
+        private void writeAttributes(NodeAttributes attributes) throws IOException {
+            switch (attributes) {
+                case ProfileAttributes a -> {
+                    string("name", a.name());
+                    string("title", a.title());
+                    string("subtitle", a.subtitle());
+                    string("experience", a.experience());
+                    string("email", a.email());
+                    string("location", a.location());
+                    string("photoUrl", a.photoUrl());
+                }
+                case CategoryAttributes a -> string("sectionId", a.sectionId());
+                case ItemAttributes a -> {
+                    string("company", a.company());
+                    string("dateRange", a.dateRange());
+                    string("location", a.location());
+                    strings("highlights", a.highlights());
+                    strings("technologies", a.technologies());
+                }
+                case SkillGroupAttributes a -> string("proficiencyLevel", a.proficiencyLevel());
+                case SkillAttributes a -> {
+                    string("proficiencyLevel", a.proficiencyLevel());
+                    if (a.yearsOfExperience() != null) {
+                        startAttribute("yearsOfExperience");
+                        attribute.writeSInt64(ATTRIBUTE_INT, a.yearsOfExperience());
+                        endAttribute();
+                    }
+                }
+            }
+            for (Map.Entry<String, Object> entry : attributes.extra().entrySet()) {
+                extra(entry.getKey(), entry.getValue());
+            }
+        }
+
+        private void string(String key, String value) throws IOException {
+            if (value != null) {
+                startAttribute(key);
+                attribute.writeUInt32(ATTRIBUTE_STRING, strings.index(value));
+                endAttribute();
+            }
+        }
+
+        private void strings(String key, List<String> values) throws IOException {
+            if (values != null) {
+                startAttribute(key);
+                writeStringList(values);
+                endAttribute();
+            }
+        }
+
+        // Unknown keys hold whatever Jackson decoded: strings, numbers, booleans, lists, maps, null
+        @SuppressWarnings("unchecked")
+        private void extra(String key, Object value) throws IOException {
+            startAttribute(key);
+            switch (value) {
+                case String text -> attribute.writeUInt32(ATTRIBUTE_STRING, strings.index(text));
+                case Integer number -> attribute.writeSInt64(ATTRIBUTE_INT, number);
+                case Long number -> attribute.writeSInt64(ATTRIBUTE_INT, number);
+                case Double number -> attribute.writeDouble(ATTRIBUTE_DOUBLE, number);
+                case Boolean flag -> attribute.writeBool(ATTRIBUTE_BOOL, flag);
+                case List<?> list when list.stream().allMatch(String.class::isInstance) ->
+                        writeStringList((List<String>) list);
+                case null, default -> attribute.writeString(ATTRIBUTE_JSON, MAPPER.writeValueAsString(value));
+            }
+            endAttribute();
+        }
+
+        private void startAttribute(String key) throws IOException {
+            attributeBuffer.reset();
+            attribute.writeUInt32(ATTRIBUTE_KEY, strings.index(key));
+        }
+
+        private void endAttribute() throws IOException {
+            attribute.flush();
+            node.writeByteArray(NODE_ATTRIBUTES, attributeBuffer.bytes(), 0, attributeBuffer.size());
+        }
+
+        // StringList { repeated uint32 values = 1; } with packed values, sized up front
+        private void writeStringList(List<String> values) throws IOException {
+            int[] indexes = new int[values.size()];
+            int packedSize = 0;
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = strings.index(values.get(i));
+                packedSize += CodedOutputStream.computeUInt32SizeNoTag(indexes[i]);
+            }
+            int listSize = indexes.length == 0 ? 0
+                    : CodedOutputStream.computeTagSize(STRING_LIST_VALUES)
+                    + CodedOutputStream.computeUInt32SizeNoTag(packedSize) + packedSize;
+            attribute.writeTag(ATTRIBUTE_STRING_LIST, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            attribute.writeUInt32NoTag(listSize);
+            if (indexes.length > 0) {
+                attribute.writeTag(STRING_LIST_VALUES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                attribute.writeUInt32NoTag(packedSize);
+                for (int index : indexes) {
+                    attribute.writeUInt32NoTag(index);
+                }
+            }
+        }
+    }
+
+    private static final class StringTable {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        StringTable() {
+            index("");
+        }
+
+        int index(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+            }
+            return index;
+        }
+    }
+
+    // Reusable message buffer whose bytes can be copied out without toByteArray()
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(256);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
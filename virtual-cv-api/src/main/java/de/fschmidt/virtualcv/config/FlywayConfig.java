@@ -0,0 +1,49 @@
+package de.fschmidt.virtualcv.config;
+
+import org.flywaydb.core.api.MigrationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether this process applies migrations or only verifies the schema version.
+ * <p>
+ * In {@code migrate} run mode (see {@link de.fschmidt.virtualcv.VirtualCvApiApplication}) or with
+ * {@code app.flyway.migrate-on-startup=true} Flyway migrates as usual. Otherwise startup only checks
+ * that no migration is pending and fails fast if the schema is behind this build.
+ */
+@Configuration
+public class FlywayConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(FlywayConfig.class);
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${app.run-mode:api}") String runMode,
+            @Value("${app.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if ("migrate".equals(runMode) || migrateOnStartup) {
+                flyway.migrate();
+                return;
+            }
+
+            MigrationInfo[] pending = flyway.info().pending();
+            if (pending.length > 0) {
+                String versions = Arrays.stream(pending)
+                        .map(MigrationInfo::getVersion)
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(", "));
+                throw new IllegalStateException(
+                        "Database schema is behind this build, pending migrations: " + versions
+                                + ". Run the application with the 'migrate' argument first.");
+            }
+            log.info("Schema is up to date at version {}", flyway.info().current().getVersion());
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package de.fschmidt.virtualcv.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Makes the ltree operators on {@code cv_node.path} usable in JPQL, so path queries keep the
+ * constructor-expression DTO style of the other repository queries.
+ * <p>
+ * Registered through {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}.
+ */
+public class LtreeFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions contributions) {
+        BasicTypeRegistry types = contributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        // ltree_descendant_of(a, b): a equals b or lies below it (GiST-indexable)
+        contributions.getFunctionRegistry().registerPattern(
+                "ltree_descendant_of", "(?1 <@ ?2)", types.resolve(StandardBasicTypes.BOOLEAN));
+        // ltree_depth(a): number of labels, i.e. depth + 1
+        contributions.getFunctionRegistry().registerPattern(
+                "ltree_depth", "nlevel(?1)", types.resolve(StandardBasicTypes.INTEGER));
+    }
+}
@@ -0,0 +1,77 @@
+package de.fschmidt.virtualcv.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import de.fschmidt.virtualcv.command.*;
+import de.fschmidt.virtualcv.domain.NodeAttributesCodec;
+import de.fschmidt.virtualcv.dto.CvDataDto;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.CvNodeRefDto;
+import de.fschmidt.virtualcv.dto.TechnologyStatsDto;
+import de.fschmidt.virtualcv.repository.CvNodeRepository;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Reflection and resource hints for the GraalVM native image.
+ * <p>
+ * Spring AOT covers beans and controller signatures; this adds what it cannot see:
+ * JPQL constructor expressions, the Jackson-mapped JSONB attributes, the Flyway scripts and the
+ * service-loaded Hibernate function contributor.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> JSON_TYPES = List.of(
+            CvNodeDto.class,
+            CvNodeRefDto.class,
+            CvDataDto.class,
+            // Native query results mapped by constructor
+            TechnologyStatsDto.TechnologyCount.class,
+            CvNodeRepository.ProficiencyCount.class,
+            // JPQL constructor expression (snapshot catch-up)
+            CvNodeRepository.CvNodeCount.class,
+            CreateProfileCommand.class,
+            CreateCategoryCommand.class,
+            CreateItemCommand.class,
+            CreateSkillGroupCommand.class,
+            CreateSkillCommand.class,
+            UpdateNodeCommand.class
+    );
+
+    // Concrete types Jackson creates for unknown attribute keys and UpdateNodeCommand.attributes
+    private static final List<Class<?>> ATTRIBUTE_TYPES = List.of(
+            LinkedHashMap.class,
+            HashMap.class,
+            ArrayList.class
+    );
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> type : JSON_TYPES) {
+            hints.reflection().registerType(type,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+        for (Class<?> type : ATTRIBUTE_TYPES) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+
+        hints.reflection().registerType(NodeAttributesCodec.Serializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(LtreeFunctionContributor.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(PointFunctionContributor.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("META-INF/services/org.hibernate.boot.model.FunctionContributor");
+
+        // Second-level cache: the JCache provider is loaded by name and reads its defaults from reference.conf
+        hints.reflection().registerType(CaffeineCachingProvider.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("reference.conf");
+
+        hints.resources().registerPattern("db/migration/*.sql");
+        hints.resources().registerPattern("application*.properties");
+    }
+}
@@ -0,0 +1,25 @@
+package de.fschmidt.virtualcv.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Makes the geometric box test on node positions usable in JPQL, in the form the
+ * {@code idx_cv_node_position} GiST index is built on.
+ * <p>
+ * Registered through {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}.
+ */
+public class PointFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions contributions) {
+        BasicTypeRegistry types = contributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        // point_in_box(x, y, x1, y1, x2, y2): (x, y) lies in the box with corners (x1, y1), (x2, y2), borders included
+        contributions.getFunctionRegistry().registerPattern(
+                "point_in_box", "(point(?1, ?2) <@ box(point(?3, ?4), point(?5, ?6)))",
+                types.resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
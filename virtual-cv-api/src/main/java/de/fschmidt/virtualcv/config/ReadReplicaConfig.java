@@ -0,0 +1,83 @@
+package de.fschmidt.virtualcv.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to Postgres read replicas, active when
+ * {@code app.datasource.replica-urls} is set.
+ * <p>
+ * The application's {@link DataSource} is a {@link LazyConnectionDataSourceProxy} over the primary
+ * pool ({@code spring.datasource.*}) whose read-only target is a {@link ReplicaDataSource}: a
+ * transaction marked {@code readOnly} gets a replica connection, everything else the primary.
+ * {@link ReadYourWritesInterceptor} keeps clients on the primary right after they wrote.
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replica-urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaDataSource replicaDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica-urls}") List<String> urls,
+            @Value("${app.datasource.replica-username:}") String username,
+            @Value("${app.datasource.replica-password:}") String password,
+            @Value("${app.datasource.replica-max-lag:5s}") Duration maxLag,
+            @Value("${app.datasource.replica-check-interval:5s}") Duration checkInterval) {
+        List<ReplicaDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .username(username.isBlank() ? properties.determineUsername() : username)
+                    .password(username.isBlank() ? properties.determinePassword() : password)
+                    .build();
+            pool.setPoolName(name);
+            pool.setReadOnly(true);
+            pool.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            // Do not block startup on a replica that is down, and give up on it quickly at runtime:
+            // falling back to the primary is better than waiting out the default 30s
+            pool.setInitializationFailTimeout(-1);
+            pool.setConnectionTimeout(1000);
+            replicas.add(new ReplicaDataSource.Replica(name, pool));
+        }
+        ReplicaDataSource replicaDataSource = new ReplicaDataSource(primaryDataSource, replicas, maxLag);
+        replicaDataSource.startHealthCheck(checkInterval);
+        return replicaDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primaryDataSource);
+        routing.setReadOnlyDataSource(replicaDataSource);
+        return routing;
+    }
+
+    @Bean
+    ReadYourWritesInterceptor readYourWritesInterceptor(
+            @Value("${app.datasource.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesInterceptor(window);
+    }
+}
@@ -0,0 +1,47 @@
+package de.fschmidt.virtualcv.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override that sends read-only transactions to the primary instead of a read replica.
+ * <p>
+ * Used for read-your-writes (see {@link ReadYourWritesInterceptor}) and for loads whose result is
+ * cached under the current graph version, which must not come from a replica that lags behind.
+ * Without configured replicas every read goes to the primary anyway.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean primaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+
+    /**
+     * Runs {@code action} with all reads on the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY.remove();
+            } else {
+                PRIMARY.set(previous);
+            }
+        }
+    }
+
+    static void stickToPrimary() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        PRIMARY.remove();
+    }
+}
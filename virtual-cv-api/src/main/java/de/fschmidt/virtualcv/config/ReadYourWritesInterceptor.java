@@ -0,0 +1,64 @@
+package de.fschmidt.virtualcv.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes for replica routing: after a client's successful write, its reads go to the
+ * primary for {@code window} so it does not see the state from before its own change.
+ * <p>
+ * Clients are told apart by {@link ClientAddress}, since reads are anonymous. Recent writers are
+ * tracked per instance; with several API replicas a client may still read from a replica through
+ * another instance, bounded by the replica lag limit.
+ */
+class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private final long windowNanos;
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    ReadYourWritesInterceptor(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        String client = ClientAddress.of(request);
+        Long written = lastWrite.get(client);
+        if (written != null) {
+            if (System.nanoTime() - written < windowNanos) {
+                ReadRouting.stickToPrimary();
+            } else {
+                lastWrite.remove(client, written);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request,
+                                @NonNull HttpServletResponse response,
+                                @NonNull Object handler,
+                                @Nullable Exception ex) {
+        ReadRouting.clear();
+        if (isWrite(request.getMethod()) && ex == null && response.getStatus() < 400) {
+            long now = System.nanoTime();
+            lastWrite.put(ClientAddress.of(request), now);
+            // Writes are rare, so expired entries are simply swept here
+            lastWrite.values().removeIf(t -> now - t >= windowNanos);
+        }
+    }
+
+    private static boolean isWrite(String method) {
+        return "POST".equalsIgnoreCase(method) || "PUT".equalsIgnoreCase(method)
+                || "PATCH".equalsIgnoreCase(method) || "DELETE".equalsIgnoreCase(method);
+    }
+}
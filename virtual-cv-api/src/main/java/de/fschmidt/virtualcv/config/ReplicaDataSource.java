@@ -0,0 +1,146 @@
+package de.fschmidt.virtualcv.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only side of the routing set up in {@link ReadReplicaConfig}: hands out connections to the
+ * healthy replicas in round-robin order and falls back to the primary.
+ * <p>
+ * A replica is taken out of rotation when it refuses a connection or when the periodic check finds
+ * it unreachable or lagging more than {@code maxLag} behind the primary; the same check puts it back.
+ * Threads marked with {@link ReadRouting#onPrimary} always get a primary connection.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    // Replay lag in seconds; 0 when the replica has replayed everything it received or is not in
+    // recovery (pg_last_xact_replay_timestamp stays old while the primary is idle, and after a restart
+    // the receive position starts behind the replay position until new WAL arrives)
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() <= pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+
+    /**
+     * One replica pool and its last known health.
+     */
+    static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        boolean healthy() {
+            return healthy;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService healthCheck;
+
+    ReplicaDataSource(DataSource primary, List<Replica> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+    }
+
+    void startHealthCheck(Duration interval) {
+        healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthCheck.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadRouting.primaryRequired()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    markUnhealthy(replica, e.getMessage());
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // Like the Hikari pools behind it: connections always use the configured credentials
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                double lagSeconds = rs.getDouble(1);
+                if (lagSeconds * 1000 > maxLag.toMillis()) {
+                    markUnhealthy(replica, "replication lag " + lagSeconds + "s");
+                } else if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Read replica {} is back in rotation", replica.name);
+                }
+            } catch (SQLException | RuntimeException e) {
+                markUnhealthy(replica, e.getMessage());
+            }
+        }
+    }
+
+    private void markUnhealthy(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Read replica {} taken out of rotation: {}", replica.name, reason);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (healthCheck != null) {
+            healthCheck.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package de.fschmidt.virtualcv.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import de.fschmidt.virtualcv.domain.CvNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * JCache (Caffeine) regions of Hibernate's second-level cache.
+ * <p>
+ * Regions are created here, bounded and with a time to live, and Hibernate is configured to fail
+ * on a region that is not ({@code hibernate.javax.cache.missing_cache_strategy=fail}) instead of
+ * creating an unbounded one. The TTL limits how long changes made outside the application (manual
+ * SQL) stay invisible to commands. Hit and miss counts are exported as the
+ * {@code hibernate.second.level.cache.*} metrics.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * A manager of its own rather than the provider's JVM-wide default one, so another application
+     * context in the same JVM (tests) does not find the region already created. Closed with the context.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${app.entity-cache.max-entries:10000}") long maxEntries,
+                                              @Value("${app.entity-cache.ttl:10m}") Duration ttl) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("virtual-cv:entity-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+        CaffeineConfiguration<Object, Object> region = new CaffeineConfiguration<>();
+        region.setMaximumSize(OptionalLong.of(maxEntries));
+        region.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        region.setStatisticsEnabled(true);
+        cacheManager.createCache(CvNode.CACHE_REGION, region);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+    }
+}
@@ -38,7 +38,7 @@ public class SecurityConfig {
                 // Public read endpoints
                 .requestMatchers(HttpMethod.GET, "/cv/**").permitAll()
                 .requestMatchers("/health").permitAll()
-                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/liveness", "/actuator/health/readiness").permitAll()
                 // OpenAPI/Swagger
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/v3/api-docs.yaml").permitAll()
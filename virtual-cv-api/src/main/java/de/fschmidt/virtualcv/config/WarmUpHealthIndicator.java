@@ -0,0 +1,36 @@
+package de.fschmidt.virtualcv.config;
+
+import de.fschmidt.virtualcv.service.CvWarmUpRunner;
+import de.fschmidt.virtualcv.service.CvWarmUpRunner.Progress;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code warmUp} health: OUT_OF_SERVICE while {@link CvWarmUpRunner} has not finished, so the
+ * readiness group (which includes it) keeps the instance out of the load balancer until then.
+ * A failed warm-up is reported as UP, the instance can serve anyway.
+ */
+@Component("warmUp")
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private final CvWarmUpRunner runner;
+
+    public WarmUpHealthIndicator(CvWarmUpRunner runner) {
+        this.runner = runner;
+    }
+
+    @Override
+    public Health health() {
+        Progress progress = runner.progress();
+        Health.Builder health = switch (progress.state()) {
+            case PENDING, RUNNING -> Health.outOfService();
+            case DONE, FAILED -> Health.up();
+        };
+        return health
+                .withDetail("state", progress.state())
+                .withDetail("iterations", progress.iterations())
+                .withDetail("elapsed", progress.elapsed().toMillis() + " ms")
+                .build();
+    }
+}
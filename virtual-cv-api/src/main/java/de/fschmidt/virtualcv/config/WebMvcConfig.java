@@ -1,22 +1,54 @@
 package de.fschmidt.virtualcv.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import de.fschmidt.virtualcv.dto.NodeProjection;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final EmailWhitelistFilter emailWhitelistFilter;
+    private final ObjectProvider<ReadYourWritesInterceptor> readYourWritesInterceptor;
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
 
-    public WebMvcConfig(EmailWhitelistFilter emailWhitelistFilter) {
+    public WebMvcConfig(EmailWhitelistFilter emailWhitelistFilter,
+                        ObjectProvider<ReadYourWritesInterceptor> readYourWritesInterceptor,
+                        Jackson2ObjectMapperBuilder objectMapperBuilder) {
         this.emailWhitelistFilter = emailWhitelistFilter;
+        this.readYourWritesInterceptor = readYourWritesInterceptor;
+        this.objectMapperBuilder = objectMapperBuilder;
     }
 
     @Override
     public void addInterceptors(@NonNull InterceptorRegistry registry) {
         registry.addInterceptor(emailWhitelistFilter)
             .addPathPatterns("/cv/**");
+        // Only present when read replicas are configured
+        readYourWritesInterceptor.ifAvailable(interceptor ->
+            registry.addInterceptor(interceptor).addPathPatterns("/cv/**"));
+    }
+
+    @Override
+    public void addFormatters(@NonNull FormatterRegistry registry) {
+        // The sparse fields parameter; an unknown field fails the conversion (400 from CvController)
+        registry.addConverter(String.class, NodeProjection.class, NodeProjection::fromFields);
+    }
+
+    @Override
+    public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+        // Appended after JSON, so only an explicit Accept selects them (*/* stays JSON)
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+            objectMapperBuilder.factory(new CBORFactory()).build()));
+        converters.add(new CvGraphProtobufHttpMessageConverter());
     }
 }
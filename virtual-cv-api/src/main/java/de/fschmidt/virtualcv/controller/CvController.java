@@ -1,106 +1,381 @@
 package de.fschmidt.virtualcv.controller;
 
 import de.fschmidt.virtualcv.command.*;
+import de.fschmidt.virtualcv.domain.CvNode;
+import de.fschmidt.virtualcv.dto.BoundingBox;
 import de.fschmidt.virtualcv.dto.CvDataDto;
+import de.fschmidt.virtualcv.dto.CvLayoutDto;
 import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.CvNodeRefDto;
+import de.fschmidt.virtualcv.dto.CvNodeStatsDto;
+import de.fschmidt.virtualcv.dto.ImportResultDto;
+import de.fschmidt.virtualcv.dto.ImportResultDto.ImportMode;
+import de.fschmidt.virtualcv.dto.NodeProjection;
+import de.fschmidt.virtualcv.dto.NodeState;
+import de.fschmidt.virtualcv.dto.SuggestionDto;
+import de.fschmidt.virtualcv.dto.TechnologyStatsDto;
+import de.fschmidt.virtualcv.service.CvGraphIndexService;
+import de.fschmidt.virtualcv.service.CvImportException;
+import de.fschmidt.virtualcv.service.CvImportService;
+import de.fschmidt.virtualcv.service.CvLayoutService;
+import de.fschmidt.virtualcv.service.CvNodeReadCoalescer;
 import de.fschmidt.virtualcv.service.CvNodeService;
+import de.fschmidt.virtualcv.service.CvSuggestService;
+import de.fschmidt.virtualcv.service.CvTechnologyStatsService;
+import de.fschmidt.virtualcv.service.CvViewportService;
+import de.fschmidt.virtualcv.service.CvWritePipeline;
+import de.fschmidt.virtualcv.service.InvalidMoveException;
+import de.fschmidt.virtualcv.service.NodeExistsException;
+import de.fschmidt.virtualcv.service.SearchCancelledException;
+import de.fschmidt.virtualcv.service.StandardCvRenderService;
+import de.fschmidt.virtualcv.service.StandardCvRenderService.RenderedPage;
+import de.fschmidt.virtualcv.service.WriteQueueFullException;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+/**
+ * All endpoints are scoped to one CV, selected with the {@code cv} query parameter
+ * (defaults to {@value CvNode#DEFAULT_CV_ID}).
+ */
 @Validated
 @RestController
 @RequestMapping("/cv")
 public class CvController {
 
+    /**
+     * Optional search session id: a search cancels the still running one of the same session
+     */
+    static final String SEARCH_SESSION = "X-Search-Session";
+
     private final CvNodeService service;
+    private final CvWritePipeline writes;
+    private final CvNodeReadCoalescer reads;
+    private final CvGraphIndexService graphIndex;
+    private final CvLayoutService layoutService;
+    private final StandardCvRenderService renderService;
+    private final CvImportService importService;
+    private final CvSuggestService suggestService;
+    private final CvTechnologyStatsService technologyStats;
+    private final CvViewportService viewport;
 
-    public CvController(CvNodeService service) {
+    public CvController(CvNodeService service, CvWritePipeline writes, CvNodeReadCoalescer reads,
+                        CvGraphIndexService graphIndex, CvLayoutService layoutService,
+                        StandardCvRenderService renderService, CvImportService importService,
+                        CvSuggestService suggestService, CvTechnologyStatsService technologyStats,
+                        CvViewportService viewport) {
         this.service = service;
+        this.writes = writes;
+        this.reads = reads;
+        this.graphIndex = graphIndex;
+        this.layoutService = layoutService;
+        this.renderService = renderService;
+        this.importService = importService;
+        this.suggestService = suggestService;
+        this.technologyStats = technologyStats;
+        this.viewport = viewport;
     }
 
     // Queries
 
     @GetMapping
-    public CvDataDto getAllNodes() {
-        return service.getAllNodes();
+    public ResponseEntity<CvDataDto> getAllNodes(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @RequestParam(name = SparseFieldsAdvice.FIELDS, defaultValue = "") NodeProjection projection) {
+        return ResponseEntity.ok(reads.getAllNodes(cvId, projection));
+    }
+
+    /**
+     * The part of the graph inside a canvas viewport, for loading only visible nodes on pan and zoom.
+     */
+    @GetMapping("/nodes")
+    public ResponseEntity<CvDataDto> getNodesInBox(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @RequestParam String bbox,
+            @RequestParam(name = SparseFieldsAdvice.FIELDS, defaultValue = "") NodeProjection projection) {
+        try {
+            BoundingBox box = BoundingBox.fromValue(bbox);
+            return ResponseEntity.ok(new CvDataDto(viewport.getNodesInBox(cvId, box, projection)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/nodes/{id}")
-    public ResponseEntity<CvNodeDto> getNode(@PathVariable String id) {
-        return service.getNode(id)
+    public ResponseEntity<CvNodeDto> getNode(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @PathVariable String id,
+            @RequestParam(name = SparseFieldsAdvice.FIELDS, defaultValue = "") NodeProjection projection) {
+        return reads.getNode(cvId, id, projection)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/nodes/{id}/children")
-    public List<CvNodeDto> getChildren(@PathVariable String id) {
-        return service.getChildren(id);
+    public ResponseEntity<List<CvNodeDto>> getChildren(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @PathVariable String id,
+            @RequestParam(name = SparseFieldsAdvice.FIELDS, defaultValue = "") NodeProjection projection) {
+        return ResponseEntity.ok(reads.getChildren(cvId, id, projection));
+    }
+
+    @GetMapping("/nodes/{id}/descendants")
+    public ResponseEntity<List<CvNodeDto>> getDescendants(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @PathVariable String id,
+            @RequestParam(name = SparseFieldsAdvice.FIELDS, defaultValue = "") NodeProjection projection) {
+        return ResponseEntity.ok(reads.getDescendants(cvId, id, projection));
+    }
+
+    @GetMapping("/nodes/{id}/ancestors")
+    public ResponseEntity<List<CvNodeRefDto>> getAncestors(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @PathVariable String id) {
+        return graphIndex.getAncestors(cvId, id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/nodes/{id}/stats")
+    public ResponseEntity<CvNodeStatsDto> getStats(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @PathVariable String id) {
+        return graphIndex.getStats(cvId, id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/stats/technologies")
+    public TechnologyStatsDto getTechnologyStats(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId) {
+        return technologyStats.getStats(cvId);
+    }
+
+    @GetMapping("/layout")
+    public ResponseEntity<CvLayoutDto> getLayout(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @RequestParam(required = false) String state) {
+        NodeState nodeState = null;
+        if (state != null) {
+            try {
+                nodeState = NodeState.fromValue(state);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return layoutService.getLayout(cvId, nodeState)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/render/standard", produces = MediaType.TEXT_HTML_VALUE)
+    public ResponseEntity<byte[]> renderStandard(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            WebRequest request) {
+        RenderedPage page = renderService.getPage(cvId).orElse(null);
+        if (page == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(page.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(page.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(page.etag())
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(page.body());
     }
 
     @GetMapping("/search")
-    public List<CvNodeDto> search(@RequestParam @Size(min = 1, max = 100) String q) {
-        return service.search(q);
+    public ResponseEntity<List<CvNodeDto>> search(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @RequestParam @Size(min = 1, max = 100) String q,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(100) int limit,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(1000) int offset,
+            @RequestHeader(name = SEARCH_SESSION, required = false) @Size(max = 64) String session,
+            @RequestParam(name = SparseFieldsAdvice.FIELDS, defaultValue = "") NodeProjection projection) {
+        // The projection is applied by SparseFieldsAdvice, search results are always read in full
+        return ResponseEntity.ok(reads.search(cvId, q, limit, offset, session));
+    }
+
+    @GetMapping("/suggest")
+    public List<SuggestionDto> suggest(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @RequestParam @Size(min = 1, max = 100) String prefix,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(10) int limit) {
+        return suggestService.suggest(cvId, prefix, limit);
     }
 
     // Commands - Create (type-specific endpoints)
 
     @PostMapping("/nodes/profile")
-    public ResponseEntity<CvNodeDto> createProfile(@Valid @RequestBody CreateProfileCommand command) {
-        CvNodeDto created = service.create(command);
+    public ResponseEntity<CvNodeDto> createProfile(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @Valid @RequestBody CreateProfileCommand command) {
+        CvNodeDto created = writes.execute(() -> service.create(cvId, command));
         return ResponseEntity.created(URI.create("/cv/nodes/" + created.id())).body(created);
     }
 
     @PostMapping("/nodes/category")
-    public ResponseEntity<CvNodeDto> createCategory(@Valid @RequestBody CreateCategoryCommand command) {
-        CvNodeDto created = service.create(command);
+    public ResponseEntity<CvNodeDto> createCategory(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @Valid @RequestBody CreateCategoryCommand command) {
+        CvNodeDto created = writes.execute(() -> service.create(cvId, command));
         return ResponseEntity.created(URI.create("/cv/nodes/" + created.id())).body(created);
     }
 
     @PostMapping("/nodes/item")
-    public ResponseEntity<CvNodeDto> createItem(@Valid @RequestBody CreateItemCommand command) {
-        CvNodeDto created = service.create(command);
+    public ResponseEntity<CvNodeDto> createItem(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @Valid @RequestBody CreateItemCommand command) {
+        CvNodeDto created = writes.execute(() -> service.create(cvId, command));
         return ResponseEntity.created(URI.create("/cv/nodes/" + created.id())).body(created);
     }
 
     @PostMapping("/nodes/skill-group")
-    public ResponseEntity<CvNodeDto> createSkillGroup(@Valid @RequestBody CreateSkillGroupCommand command) {
-        CvNodeDto created = service.create(command);
+    public ResponseEntity<CvNodeDto> createSkillGroup(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @Valid @RequestBody CreateSkillGroupCommand command) {
+        CvNodeDto created = writes.execute(() -> service.create(cvId, command));
         return ResponseEntity.created(URI.create("/cv/nodes/" + created.id())).body(created);
     }
 
     @PostMapping("/nodes/skill")
-    public ResponseEntity<CvNodeDto> createSkill(@Valid @RequestBody CreateSkillCommand command) {
-        CvNodeDto created = service.create(command);
+    public ResponseEntity<CvNodeDto> createSkill(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @Valid @RequestBody CreateSkillCommand command) {
+        CvNodeDto created = writes.execute(() -> service.create(cvId, command));
         return ResponseEntity.created(URI.create("/cv/nodes/" + created.id())).body(created);
     }
 
     // Commands - Update (generic)
 
     @PutMapping("/nodes/{id}")
-    public ResponseEntity<CvNodeDto> updateNode(
+    public ResponseEntity<?> updateNode(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
             @PathVariable String id,
             @Valid @RequestBody UpdateNodeCommand command) {
         if (!id.equals(command.id())) {
             return ResponseEntity.badRequest().build();
         }
-        return service.update(command)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        try {
+            return writes.execute(() -> service.update(cvId, command))
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (InvalidMoveException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", e.getMessage(), "code", "INVALID_MOVE"));
+        }
+    }
+
+    @PostMapping("/nodes/{id}/move")
+    public ResponseEntity<?> moveNode(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @PathVariable String id,
+            @Valid @RequestBody MoveNodeCommand command) {
+        try {
+            return writes.execute(() -> service.move(cvId, id, command))
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (InvalidMoveException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", e.getMessage(), "code", "INVALID_MOVE"));
+        }
+    }
+
+    // Commands - Bulk import (streamed into PostgreSQL via COPY)
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importNodes(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(defaultValue = "upsert") String mode,
+            InputStream body) {
+        ImportMode importMode;
+        try {
+            importMode = ImportMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType);
+            ImportResultDto result = importService.importNodes(cvId, body, ndjson, importMode);
+            return ResponseEntity.ok(result);
+        } catch (CvImportException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", e.getMessage(), "code", "INVALID_IMPORT"));
+        }
+    }
+
+    // Commands - Repair
+
+    @PostMapping("/stats/technologies/rebuild")
+    public TechnologyStatsDto rebuildTechnologyStats(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId) {
+        return technologyStats.rebuild(cvId);
     }
 
     // Commands - Delete (hard delete with cascade to children)
 
     @DeleteMapping("/nodes/{id}")
-    public ResponseEntity<Void> deleteNode(@PathVariable String id) {
-        if (service.delete(id)) {
+    public ResponseEntity<Void> deleteNode(
+            @RequestParam(name = "cv", defaultValue = CvNode.DEFAULT_CV_ID) @Size(max = 50) String cvId,
+            @PathVariable String id) {
+        if (writes.execute(() -> service.delete(cvId, id))) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
+
+    /**
+     * A query parameter that cannot be converted, e.g. a {@code fields} parameter naming unknown fields
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, String>> invalidParameter(MethodArgumentTypeMismatchException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("message", e.getName() + ": " + e.getMostSpecificCause().getMessage(),
+                        "code", "INVALID_PARAMETER"));
+    }
+
+    @ExceptionHandler(NodeExistsException.class)
+    public ResponseEntity<Map<String, String>> nodeExists(NodeExistsException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", e.getMessage(), "code", "NODE_EXISTS"));
+    }
+
+    @ExceptionHandler(WriteQueueFullException.class)
+    public ResponseEntity<Map<String, String>> writeQueueFull(WriteQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", e.getMessage(), "code", "WRITE_QUEUE_FULL"));
+    }
+
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<Map<String, String>> queryTimeout(QueryTimeoutException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", "Query took too long, try a more specific one", "code", "QUERY_TIMEOUT"));
+    }
+
+    @ExceptionHandler(SearchCancelledException.class)
+    public ResponseEntity<Map<String, String>> searchCancelled(SearchCancelledException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", e.getMessage(), "code", "SEARCH_SUPERSEDED"));
+    }
 }
@@ -0,0 +1,58 @@
+package de.fschmidt.virtualcv.controller;
+
+import de.fschmidt.virtualcv.dto.NodeProjection;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.lang.reflect.Executable;
+import java.lang.reflect.Parameter;
+
+/**
+ * Serializes {@link CvController} responses with the Jackson view of the requested
+ * {@code fields} projection, so fields outside it are left out instead of written as null.
+ * Applies to JSON and CBOR; the protobuf converter skips null fields anyway.
+ */
+@ControllerAdvice(assignableTypes = CvController.class)
+class SparseFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    static final String FIELDS = "fields";
+
+    @Override
+    protected void beforeBodyWriteInternal(@NonNull MappingJacksonValue bodyContainer,
+                                           @NonNull MediaType contentType,
+                                           @NonNull MethodParameter returnType,
+                                           @NonNull ServerHttpRequest request,
+                                           @NonNull ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String fields = servletRequest.getServletRequest().getParameter(FIELDS);
+        if (fields == null || !acceptsFields(returnType.getExecutable())) {
+            return;
+        }
+        // Valid: the handler's argument was converted from it (WebMvcConfig), an unknown field never gets here
+        NodeProjection projection = NodeProjection.fromFields(fields);
+        if (projection != NodeProjection.FULL) {
+            bodyContainer.setSerializationView(projection.view());
+        }
+    }
+
+    // Other endpoints ignore the parameter, their responses have no views
+    private static boolean acceptsFields(Executable handler) {
+        for (Parameter parameter : handler.getParameters()) {
+            RequestParam requestParam = parameter.getAnnotation(RequestParam.class);
+            if (requestParam != null && FIELDS.equals(requestParam.name())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,13 @@
+package de.fschmidt.virtualcv.domain;
+
+import java.util.Map;
+
+public record CategoryAttributes(
+        String sectionId,
+        Map<String, Object> extra
+) implements NodeAttributes {
+
+    public CategoryAttributes {
+        extra = extra != null ? extra : Map.of();
+    }
+}
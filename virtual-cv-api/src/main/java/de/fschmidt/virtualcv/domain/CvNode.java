@@ -3,16 +3,38 @@ package de.fschmidt.virtualcv.domain;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 
+import java.io.Serializable;
 import java.time.Instant;
-import java.util.Map;
 
+/**
+ * Cached in the second-level cache (see {@code SecondLevelCacheConfig}), so primary-key loads on
+ * the command path usually do not query. Writes that bypass Hibernate evict the region.
+ * <p>
+ * Node ids are unique per CV, the primary key is {@link Key (cvId, id)}.
+ */
 @Entity
 @Table(name = "cv_node")
+@IdClass(CvNode.Key.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CvNode.CACHE_REGION)
 public class CvNode {
 
+    /** CV that nodes belong to when no CV is specified */
+    public static final String DEFAULT_CV_ID = "default";
+
+    public static final String CACHE_REGION = "cv-node";
+
+    public record Key(String cvId, String id) implements Serializable {
+    }
+
+    @Id
+    @Column(name = "cv_id", length = 50)
+    private String cvId = DEFAULT_CV_ID;
+
     @Id
     @Column(length = 50)
     private String id;
@@ -22,9 +44,14 @@ public class CvNode {
     @Column(nullable = false, length = 20, updatable = false)
     private NodeType type;
 
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "parent_id")
-    private CvNode parent;
+    // Id of the parent in the same CV; the (cv_id, parent_id) foreign key enforces it (V5)
+    @Column(name = "parent_id", length = 50)
+    private String parentId;
+
+    // Materialized path of node keys from the root, maintained by database triggers (V6).
+    // Only used in queries: a loaded (or cached) value is stale once an ancestor moved.
+    @Column(columnDefinition = "ltree", insertable = false, updatable = false)
+    private String path;
 
     @NotBlank
     @Column(nullable = false)
@@ -33,9 +60,13 @@ public class CvNode {
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    @JdbcTypeCode(SqlTypes.JSON)
-    @Column(columnDefinition = "jsonb")
-    private Map<String, Object> attributes;
+    // Raw JSON, decoded for the node's type on first access
+    @Type(JsonbType.class)
+    @Column(name = "attributes", columnDefinition = "jsonb")
+    private String attributesJson;
+
+    @Transient
+    private NodeAttributes attributes;
 
     @Column(name = "position_x")
     private Integer positionX;
@@ -79,6 +110,14 @@ public class CvNode {
         this.id = id;
     }
 
+    public String getCvId() {
+        return cvId;
+    }
+
+    public void setCvId(String cvId) {
+        this.cvId = cvId;
+    }
+
     public NodeType getType() {
         return type;
     }
@@ -87,12 +126,16 @@ public class CvNode {
         this.type = type;
     }
 
-    public CvNode getParent() {
-        return parent;
+    public String getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
     }
 
-    public void setParent(CvNode parent) {
-        this.parent = parent;
+    public String getPath() {
+        return path;
     }
 
     public String getLabel() {
@@ -111,12 +154,16 @@ public class CvNode {
         this.description = description;
     }
 
-    public Map<String, Object> getAttributes() {
+    public NodeAttributes getAttributes() {
+        if (attributes == null && attributesJson != null) {
+            attributes = NodeAttributesCodec.read(type, attributesJson);
+        }
         return attributes;
     }
 
-    public void setAttributes(Map<String, Object> attributes) {
+    public void setAttributes(NodeAttributes attributes) {
         this.attributes = attributes;
+        this.attributesJson = NodeAttributesCodec.toJson(attributes);
     }
 
     public Integer getPositionX() {
@@ -0,0 +1,18 @@
+package de.fschmidt.virtualcv.domain;
+
+import java.util.List;
+import java.util.Map;
+
+public record ItemAttributes(
+        String company,
+        String dateRange,
+        String location,
+        List<String> highlights,
+        List<String> technologies,
+        Map<String, Object> extra
+) implements NodeAttributes {
+
+    public ItemAttributes {
+        extra = extra != null ? extra : Map.of();
+    }
+}
@@ -0,0 +1,27 @@
+package de.fschmidt.virtualcv.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Map;
+
+/**
+ * Type-specific attributes of a {@link CvNode}, stored as JSONB.
+ * <p>
+ * There is one record per {@link CvNode.NodeType}, mirroring the {@code Create*Command} records.
+ * The JSON carries no type information: the node's type selects the record when decoding
+ * (see {@link NodeAttributesCodec}). Keys a record does not know (e.g. {@code isDraft} set by the UI)
+ * and known keys with an unexpected JSON type are kept in {@link #extra()} and written back unchanged.
+ */
+@JsonSerialize(using = NodeAttributesCodec.Serializer.class)
+public sealed interface NodeAttributes permits
+        ProfileAttributes,
+        CategoryAttributes,
+        ItemAttributes,
+        SkillGroupAttributes,
+        SkillAttributes {
+
+    /**
+     * Unknown keys in document order, never null.
+     */
+    Map<String, Object> extra();
+}
@@ -0,0 +1,327 @@
+package de.fschmidt.virtualcv.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming JSON codec for {@link NodeAttributes}.
+ * <p>
+ * Reads JSON tokens directly into the record for the node's type, without building an intermediate
+ * map; only unknown keys are materialized (into {@link NodeAttributes#extra()}). Writing emits the
+ * known fields that are set, then the unknown keys. String values are canonicalized through
+ * {@link StringPool#SHARED}, so repeated values like technology names share one instance.
+ */
+public final class NodeAttributesCodec {
+
+    // Only used for values of unknown keys and for merging patches, so plain defaults are enough
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private NodeAttributesCodec() {
+    }
+
+    /**
+     * @param json JSON object text, may be null
+     */
+    public static NodeAttributes read(NodeType type, String json) {
+        if (json == null) {
+            return null;
+        }
+        try (JsonParser parser = MAPPER.createParser(json)) {
+            return read(type, parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid attributes of " + type + " node", e);
+        }
+    }
+
+    /**
+     * Reads one JSON object (or null) starting at the parser's current token, or the next one if
+     * there is no current token.
+     */
+    public static NodeAttributes read(NodeType type, JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Attributes must be a JSON object");
+        }
+        Fields f = new Fields(parser);
+        return switch (type) {
+            case PROFILE -> {
+                String name = null, title = null, subtitle = null, experience = null;
+                String email = null, location = null, photoUrl = null;
+                while (f.next()) {
+                    switch (f.key) {
+                        case "name" -> name = f.string();
+                        case "title" -> title = f.string();
+                        case "subtitle" -> subtitle = f.string();
+                        case "experience" -> experience = f.string();
+                        case "email" -> email = f.string();
+                        case "location" -> location = f.string();
+                        case "photoUrl" -> photoUrl = f.string();
+                        default -> f.unknown();
+                    }
+                }
+                yield new ProfileAttributes(name, title, subtitle, experience, email, location, photoUrl, f.extra);
+            }
+            case CATEGORY -> {
+                String sectionId = null;
+                while (f.next()) {
+                    if (f.key.equals("sectionId")) {
+                        sectionId = f.string();
+                    } else {
+                        f.unknown();
+                    }
+                }
+                yield new CategoryAttributes(sectionId, f.extra);
+            }
+            case ITEM -> {
+                String company = null, dateRange = null, location = null;
+                List<String> highlights = null, technologies = null;
+                while (f.next()) {
+                    switch (f.key) {
+                        case "company" -> company = f.string();
+                        case "dateRange" -> dateRange = f.string();
+                        case "location" -> location = f.string();
+                        case "highlights" -> highlights = f.strings();
+                        case "technologies" -> technologies = f.strings();
+                        default -> f.unknown();
+                    }
+                }
+                yield new ItemAttributes(company, dateRange, location, highlights, technologies, f.extra);
+            }
+            case SKILL_GROUP -> {
+                String proficiencyLevel = null;
+                while (f.next()) {
+                    if (f.key.equals("proficiencyLevel")) {
+                        proficiencyLevel = f.string();
+                    } else {
+                        f.unknown();
+                    }
+                }
+                yield new SkillGroupAttributes(proficiencyLevel, f.extra);
+            }
+            case SKILL -> {
+                String proficiencyLevel = null;
+                Integer yearsOfExperience = null;
+                while (f.next()) {
+                    switch (f.key) {
+                        case "proficiencyLevel" -> proficiencyLevel = f.string();
+                        case "yearsOfExperience" -> yearsOfExperience = f.integer();
+                        default -> f.unknown();
+                    }
+                }
+                yield new SkillAttributes(proficiencyLevel, yearsOfExperience, f.extra);
+            }
+        };
+    }
+
+    public static void write(NodeAttributes attributes, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        switch (attributes) {
+            case ProfileAttributes a -> {
+                string(gen, "name", a.name());
+                string(gen, "title", a.title());
+                string(gen, "subtitle", a.subtitle());
+                string(gen, "experience", a.experience());
+                string(gen, "email", a.email());
+                string(gen, "location", a.location());
+                string(gen, "photoUrl", a.photoUrl());
+            }
+            case CategoryAttributes a -> string(gen, "sectionId", a.sectionId());
+            case ItemAttributes a -> {
+                string(gen, "company", a.company());
+                string(gen, "dateRange", a.dateRange());
+                string(gen, "location", a.location());
+                strings(gen, "highlights", a.highlights());
+                strings(gen, "technologies", a.technologies());
+            }
+            case SkillGroupAttributes a -> string(gen, "proficiencyLevel", a.proficiencyLevel());
+            case SkillAttributes a -> {
+                string(gen, "proficiencyLevel", a.proficiencyLevel());
+                if (a.yearsOfExperience() != null) {
+                    gen.writeNumberField("yearsOfExperience", a.yearsOfExperience());
+                }
+            }
+        }
+        for (Map.Entry<String, Object> entry : attributes.extra().entrySet()) {
+            gen.writeFieldName(entry.getKey());
+            MAPPER.writeValue(gen, entry.getValue());
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * @return the JSON text, or null if the attributes are null or have nothing set
+     *         (such nodes are stored without attributes)
+     */
+    public static String toJson(NodeAttributes attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        StringWriter out = new StringWriter(128);
+        try (JsonGenerator gen = MAPPER.createGenerator(out)) {
+            write(attributes, gen);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String json = out.toString();
+        return json.equals("{}") ? null : json;
+    }
+
+    /**
+     * Applies a partial update: keys in {@code patch} replace existing ones, everything else is kept.
+     */
+    @SuppressWarnings("unchecked")
+    public static NodeAttributes merge(NodeType type, NodeAttributes existing, Map<String, Object> patch) {
+        try {
+            Map<String, Object> merged = new LinkedHashMap<>();
+            if (existing != null) {
+                TokenBuffer current = new TokenBuffer(MAPPER, false);
+                write(existing, current);
+                merged.putAll(MAPPER.readValue(current.asParser(MAPPER), Map.class));
+            }
+            merged.putAll(patch);
+            TokenBuffer buffer = new TokenBuffer(MAPPER, false);
+            MAPPER.writeValue(buffer, merged);
+            return read(type, buffer.asParser(MAPPER));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void string(JsonGenerator gen, String key, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(key, value);
+        }
+    }
+
+    private static void strings(JsonGenerator gen, String key, List<String> values) throws IOException {
+        if (values != null) {
+            gen.writeArrayFieldStart(key);
+            for (String value : values) {
+                gen.writeString(value);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    /**
+     * Field cursor over one JSON object. Values of a known key that do not have the expected JSON
+     * type are moved to {@link #extra} so they survive a round trip.
+     */
+    private static final class Fields {
+
+        private final JsonParser parser;
+        private String key;
+        private Map<String, Object> extra;
+
+        Fields(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        boolean next() throws IOException {
+            key = parser.nextFieldName();
+            if (key == null) {
+                return false;
+            }
+            parser.nextToken();
+            return true;
+        }
+
+        String string() throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.VALUE_STRING) {
+                return text();
+            }
+            if (token != JsonToken.VALUE_NULL) {
+                unknown();
+            }
+            return null;
+        }
+
+        Integer integer() throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                return parser.getIntValue();
+            }
+            if (token != JsonToken.VALUE_NULL) {
+                unknown();
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> strings() throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.START_ARRAY) {
+                if (token != JsonToken.VALUE_NULL) {
+                    unknown();
+                }
+                return null;
+            }
+            List<Object> values = new ArrayList<>();
+            boolean allStrings = true;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                    values.add(text());
+                } else {
+                    allStrings = false;
+                    values.add(MAPPER.readValue(parser, Object.class));
+                }
+            }
+            if (allStrings) {
+                return (List<String>) (List<?>) values;
+            }
+            extra().put(key, values);
+            return null;
+        }
+
+        // Looked up from the parser's buffer, a pooled value is never copied into a new String
+        private String text() throws IOException {
+            return StringPool.SHARED.canonical(
+                    parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+
+        void unknown() throws IOException {
+            extra().put(key, MAPPER.readValue(parser, Object.class));
+        }
+
+        private Map<String, Object> extra() {
+            if (extra == null) {
+                extra = new LinkedHashMap<>();
+            }
+            return extra;
+        }
+    }
+
+    /**
+     * Jackson serializer, registered on {@link NodeAttributes}.
+     */
+    public static final class Serializer extends StdSerializer<NodeAttributes> {
+
+        public Serializer() {
+            super(NodeAttributes.class);
+        }
+
+        @Override
+        public void serialize(NodeAttributes value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            write(value, gen);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package de.fschmidt.virtualcv.domain;
+
+import java.util.Map;
+
+public record ProfileAttributes(
+        String name,
+        String title,
+        String subtitle,
+        String experience,
+        String email,
+        String location,
+        String photoUrl,
+        Map<String, Object> extra
+) implements NodeAttributes {
+
+    public ProfileAttributes {
+        extra = extra != null ? extra : Map.of();
+    }
+}
@@ -0,0 +1,14 @@
+package de.fschmidt.virtualcv.domain;
+
+import java.util.Map;
+
+public record SkillAttributes(
+        String proficiencyLevel,
+        Integer yearsOfExperience,
+        Map<String, Object> extra
+) implements NodeAttributes {
+
+    public SkillAttributes {
+        extra = extra != null ? extra : Map.of();
+    }
+}
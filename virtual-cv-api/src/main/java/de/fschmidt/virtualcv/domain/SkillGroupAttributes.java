@@ -0,0 +1,13 @@
+package de.fschmidt.virtualcv.domain;
+
+import java.util.Map;
+
+public record SkillGroupAttributes(
+        String proficiencyLevel,
+        Map<String, Object> extra
+) implements NodeAttributes {
+
+    public SkillGroupAttributes {
+        extra = extra != null ? extra : Map.of();
+    }
+}
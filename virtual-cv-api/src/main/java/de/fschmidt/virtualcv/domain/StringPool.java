@@ -0,0 +1,101 @@
+package de.fschmidt.virtualcv.domain;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Bounded canonicalization of the short strings that repeat across loaded nodes (attribute values
+ * such as technologies and company names, labels, parent ids), so equal values share one instance
+ * instead of keeping one copy per node.
+ * <p>
+ * A direct-mapped table of weak references: every string has one slot, picked by its hash, and a
+ * miss replaces whatever was in that slot. The table never grows, lookups never lock, and it holds
+ * nothing strongly, so values no node references anymore are collected. Two strings that share a
+ * slot keep evicting each other, which only costs deduplication. Unlike {@link String#intern()}
+ * nothing ends up in the JVM's string table.
+ * <p>
+ * Attribute keys need no pooling, Jackson already canonicalizes field names.
+ */
+public final class StringPool {
+
+    /** Pool for node data, used by {@link NodeAttributesCodec} and the node DTOs */
+    public static final StringPool SHARED = new StringPool(1 << 13);
+
+    // Longer values (descriptions, highlights) rarely repeat and would only evict the ones that do
+    static final int MAX_LENGTH = 64;
+
+    // Slots are read and replaced without synchronization: a torn race is just a miss
+    private final WeakReference<String>[] slots;
+    private final int mask;
+
+    /**
+     * @param size Number of slots, a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public StringPool(int size) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("size must be a power of two");
+        }
+        this.slots = new WeakReference[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return an equal string from the pool, or {@code value} itself, which is then pooled
+     */
+    public String canonical(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        int slot = slot(value.hashCode());
+        String cached = get(slot);
+        if (value.equals(cached)) {
+            return cached;
+        }
+        slots[slot] = new WeakReference<>(value);
+        return value;
+    }
+
+    /**
+     * Like {@link #canonical(String)} for characters in a buffer, e.g. a {@code JsonParser}'s text
+     * characters. A hit allocates nothing.
+     */
+    public String canonical(char[] chars, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return new String(chars, offset, length);
+        }
+        // Same as String.hashCode(), so both methods use the same slot for equal strings
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = slot(hash);
+        String cached = get(slot);
+        if (cached != null && contentEquals(cached, chars, offset, length)) {
+            return cached;
+        }
+        String value = new String(chars, offset, length);
+        slots[slot] = new WeakReference<>(value);
+        return value;
+    }
+
+    private String get(int slot) {
+        WeakReference<String> ref = slots[slot];
+        return ref != null ? ref.get() : null;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean contentEquals(String value, char[] chars, int offset, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
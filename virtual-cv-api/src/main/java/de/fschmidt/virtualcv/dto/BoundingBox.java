@@ -0,0 +1,33 @@
+package de.fschmidt.virtualcv.dto;
+
+/**
+ * Axis-aligned box in canvas coordinates, borders included. Always normalized: min <= max.
+ */
+public record BoundingBox(int minX, int minY, int maxX, int maxY) {
+
+    public BoundingBox {
+        if (minX > maxX || minY > maxY) {
+            throw new IllegalArgumentException("Empty bounding box");
+        }
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * @param value Two opposite corners as {@code x1,y1,x2,y2}, in any order
+     * @throws IllegalArgumentException if it is not four integers
+     */
+    public static BoundingBox fromValue(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Expected x1,y1,x2,y2: " + value);
+        }
+        int[] c = new int[4];
+        for (int i = 0; i < 4; i++) {
+            c[i] = Integer.parseInt(parts[i].trim());
+        }
+        return new BoundingBox(Math.min(c[0], c[2]), Math.min(c[1], c[3]), Math.max(c[0], c[2]), Math.max(c[1], c[3]));
+    }
+}
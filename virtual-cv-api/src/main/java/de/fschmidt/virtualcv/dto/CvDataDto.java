@@ -1,7 +1,10 @@
 package de.fschmidt.virtualcv.dto;
 
+import com.fasterxml.jackson.annotation.JsonView;
+import de.fschmidt.virtualcv.dto.NodeProjection.SummaryView;
+
 import java.util.List;
 
 public record CvDataDto(
-        List<CvNodeDto> nodes
+        @JsonView(SummaryView.class) List<CvNodeDto> nodes
 ) {}
@@ -0,0 +1,15 @@
+package de.fschmidt.virtualcv.dto;
+
+import java.util.List;
+
+/**
+ * Ready-to-render node positions for one graph version.
+ *
+ * @param version Graph version the layout was computed for
+ * @param state   Node state used for sizing, null for the initial view (nothing selected)
+ */
+public record CvLayoutDto(
+        long version,
+        NodeState state,
+        List<NodePositionDto> positions
+) {}
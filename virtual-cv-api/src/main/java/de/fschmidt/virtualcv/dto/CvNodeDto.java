@@ -1,16 +1,72 @@
 package de.fschmidt.virtualcv.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.NodeAttributes;
+import de.fschmidt.virtualcv.domain.NodeAttributesCodec;
+import de.fschmidt.virtualcv.domain.StringPool;
+import de.fschmidt.virtualcv.dto.NodeProjection.FullView;
+import de.fschmidt.virtualcv.dto.NodeProjection.SummaryView;
 
-import java.util.Map;
+import java.io.IOException;
 
+/**
+ * A node as returned by the read endpoints. {@link NodeProjection#SUMMARY} reads leave
+ * {@code description} and {@code attributes} null, and its view leaves them out of the response.
+ */
 public record CvNodeDto(
-        String id,
-        NodeType type,
-        String parentId,
-        String label,
-        String description,
-        Map<String, Object> attributes,
-        Integer positionX,
-        Integer positionY
-) {}
+        @JsonView(SummaryView.class) String id,
+        @JsonView(SummaryView.class) NodeType type,
+        @JsonView(SummaryView.class) String parentId,
+        @JsonView(SummaryView.class) String label,
+        @JsonView(FullView.class) String description,
+        @JsonView(FullView.class) NodeAttributes attributes,
+        @JsonView(SummaryView.class) Integer positionX,
+        @JsonView(SummaryView.class) Integer positionY
+) {
+
+    // Siblings share their parent id, and labels such as skill names repeat across CVs
+    public CvNodeDto {
+        parentId = StringPool.SHARED.canonical(parentId);
+        label = StringPool.SHARED.canonical(label);
+    }
+
+    /**
+     * Used by the repository's JPQL constructor expressions: decodes the JSONB text straight into
+     * the attributes record for {@code type}.
+     */
+    public CvNodeDto(String id, NodeType type, String parentId, String label, String description,
+                     String attributesJson, Integer positionX, Integer positionY) {
+        this(id, type, parentId, label, description, NodeAttributesCodec.read(type, attributesJson),
+                positionX, positionY);
+    }
+
+    /**
+     * Used by the repository's {@link NodeProjection#SUMMARY} queries.
+     */
+    public CvNodeDto(String id, NodeType type, String parentId, String label, Integer positionX, Integer positionY) {
+        this(id, type, parentId, label, null, (NodeAttributes) null, positionX, positionY);
+    }
+
+    /**
+     * JSON input (bulk import). The attributes are buffered as tokens because their record depends
+     * on {@code type}, which may come later in the object.
+     */
+    @JsonCreator
+    public static CvNodeDto fromJson(@JsonProperty("id") String id,
+                                     @JsonProperty("type") NodeType type,
+                                     @JsonProperty("parentId") String parentId,
+                                     @JsonProperty("label") String label,
+                                     @JsonProperty("description") String description,
+                                     @JsonProperty("attributes") TokenBuffer attributes,
+                                     @JsonProperty("positionX") Integer positionX,
+                                     @JsonProperty("positionY") Integer positionY) throws IOException {
+        NodeAttributes typed = attributes != null && type != null
+                ? NodeAttributesCodec.read(type, attributes.asParser())
+                : null;
+        return new CvNodeDto(id, type, parentId, label, description, typed, positionX, positionY);
+    }
+}
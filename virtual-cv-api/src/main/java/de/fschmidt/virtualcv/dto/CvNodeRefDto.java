@@ -0,0 +1,21 @@
+package de.fschmidt.virtualcv.dto;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.StringPool;
+
+/**
+ * Structural view of a node (no description, attributes or positions), e.g. for breadcrumbs.
+ */
+public record CvNodeRefDto(
+        String id,
+        NodeType type,
+        String parentId,
+        String label
+) {
+
+    // Pooled as in CvNodeDto: the graph index keeps one of these per node of every loaded CV
+    public CvNodeRefDto {
+        parentId = StringPool.SHARED.canonical(parentId);
+        label = StringPool.SHARED.canonical(label);
+    }
+}
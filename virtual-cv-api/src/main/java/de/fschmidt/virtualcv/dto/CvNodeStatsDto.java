@@ -0,0 +1,21 @@
+package de.fschmidt.virtualcv.dto;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+
+import java.util.Map;
+
+/**
+ * Aggregates over the subtree below a node.
+ *
+ * @param depth              Distance from the root (root = 0)
+ * @param descendantCount    Number of nodes below this node
+ * @param descendantsByType  Descendant count per node type
+ * @param maxDepth           Number of levels below this node (leaf = 0)
+ */
+public record CvNodeStatsDto(
+        String id,
+        int depth,
+        int descendantCount,
+        Map<NodeType, Integer> descendantsByType,
+        int maxDepth
+) {}
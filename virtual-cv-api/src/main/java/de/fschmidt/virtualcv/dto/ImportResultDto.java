@@ -0,0 +1,14 @@
+package de.fschmidt.virtualcv.dto;
+
+public record ImportResultDto(
+        int imported,
+        ImportMode mode
+) {
+
+    public enum ImportMode {
+        /** Insert new nodes, overwrite existing nodes with the same id, keep all others */
+        UPSERT,
+        /** Delete all existing nodes first */
+        REPLACE
+    }
+}
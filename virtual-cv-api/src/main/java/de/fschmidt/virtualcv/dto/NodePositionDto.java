@@ -0,0 +1,7 @@
+package de.fschmidt.virtualcv.dto;
+
+public record NodePositionDto(
+        String nodeId,
+        double x,
+        double y
+) {}
@@ -0,0 +1,58 @@
+package de.fschmidt.virtualcv.dto;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Which node fields a read returns, selected with the {@code fields} query parameter.
+ * <p>
+ * Fields are not picked one by one: the smallest projection that contains all requested fields is
+ * used, and each projection has its own repository query, so columns outside it are never read.
+ * The views are applied to {@link CvNodeDto} with Jackson's {@code @JsonView}.
+ */
+public enum NodeProjection {
+
+    /** Structure and positions, e.g. for the graph in its dormant and quickview states */
+    SUMMARY(Set.of("id", "type", "parentId", "label", "positionX", "positionY"), SummaryView.class),
+
+    /** Everything, including {@code description} and {@code attributes} */
+    FULL(Set.of("id", "type", "parentId", "label", "description", "attributes", "positionX", "positionY"),
+            FullView.class);
+
+    public interface SummaryView {}
+
+    public interface FullView extends SummaryView {}
+
+    private final Set<String> fields;
+    private final Class<?> view;
+
+    NodeProjection(Set<String> fields, Class<?> view) {
+        this.fields = fields;
+        this.view = view;
+    }
+
+    public Class<?> view() {
+        return view;
+    }
+
+    /**
+     * @param fields Comma-separated field names, null or blank for all fields
+     * @throws IllegalArgumentException for an unknown field name
+     */
+    public static NodeProjection fromFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return FULL;
+        }
+        Set<String> requested = Set.copyOf(Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .toList());
+        for (NodeProjection projection : values()) {
+            if (projection.fields.containsAll(requested)) {
+                return projection;
+            }
+        }
+        throw new IllegalArgumentException("Unknown fields: " + requested.stream()
+                .filter(field -> !FULL.fields.contains(field)).sorted().toList());
+    }
+}
@@ -0,0 +1,23 @@
+package de.fschmidt.virtualcv.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/**
+ * Display state of a node in the graph view, mirrors {@code NodeState} in the UI.
+ */
+public enum NodeState {
+    DORMANT,
+    QUICKVIEW,
+    DETAILED;
+
+    @JsonValue
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static NodeState fromValue(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,12 @@
+package de.fschmidt.virtualcv.dto;
+
+/**
+ * Typeahead completion.
+ *
+ * @param text   The label, company or technology as written in the CV
+ * @param weight Number of times it occurs in the CV, used for ranking
+ */
+public record SuggestionDto(
+        String text,
+        int weight
+) {}
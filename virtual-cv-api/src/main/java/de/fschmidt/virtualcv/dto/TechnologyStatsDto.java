@@ -0,0 +1,30 @@
+package de.fschmidt.virtualcv.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Technology frequency over ITEM nodes and skill counts per proficiency level of one CV.
+ *
+ * @param technologies         Most used first
+ * @param skillsByProficiency  SKILL node count per proficiencyLevel, largest first
+ */
+public record TechnologyStatsDto(
+        List<TechnologyCount> technologies,
+        Map<String, Integer> skillsByProficiency
+) {
+
+    /**
+     * @param itemCount  Number of ITEM nodes listing the technology
+     * @param firstYear  Earliest year in the dateRange of those items, null if none has a year
+     * @param lastYear   Latest year in the dateRange of those items, null if none has a year
+     * @param current    Whether one of the items is ongoing ("2018 - Present")
+     */
+    public record TechnologyCount(
+            String technology,
+            int itemCount,
+            Integer firstYear,
+            Integer lastYear,
+            boolean current
+    ) {}
+}
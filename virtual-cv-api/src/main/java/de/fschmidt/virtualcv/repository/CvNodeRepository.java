@@ -2,63 +2,263 @@ package de.fschmidt.virtualcv.repository;
 
 import de.fschmidt.virtualcv.domain.CvNode;
 import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.CvNodeRefDto;
+import de.fschmidt.virtualcv.dto.TechnologyStatsDto.TechnologyCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * All reads are scoped to one CV ({@code cvId}) and served by the (cv_id, ...) composite indexes;
+ * node ids are unique per CV only.
+ * Subtree and ancestor queries use the materialized {@code path} and its GiST index, so their cost
+ * does not depend on the depth of the tree.
+ */
 @Repository
-public interface CvNodeRepository extends JpaRepository<CvNode, String> {
+public interface CvNodeRepository extends JpaRepository<CvNode, CvNode.Key> {
+
+    /**
+     * Budget of one {@link #search} statement. The substring match cannot use an index, so a broad
+     * query on a large CV is cancelled instead of holding its pool connection.
+     */
+    String SEARCH_TIMEOUT_SECONDS = "2";
 
     // Entity queries (for commands)
-    List<CvNode> findByParentId(String parentId);
+    Optional<CvNode> findByCvIdAndId(String cvId, String id);
+
+    List<CvNode> findByCvIdAndParentId(String cvId, String parentId);
+
+    List<CvNode> findByCvIdAndParentIdIsNull(String cvId);
+
+    List<CvNode> findByCvIdAndType(String cvId, CvNode.NodeType type);
+
+    // Index-only probe on idx_cv_node_cv_created
+    boolean existsByCvId(String cvId);
 
-    List<CvNode> findByParentIsNull();
+    // True if nodeId is rootId itself or one of its descendants
+    @Query("""
+            SELECT COUNT(n) > 0
+            FROM CvNode n, CvNode r
+            WHERE r.cvId = :cvId AND r.id = :rootId
+              AND n.cvId = :cvId AND n.id = :nodeId
+              AND ltree_descendant_of(n.path, r.path)
+            """)
+    boolean isInSubtree(String cvId, String rootId, String nodeId);
+
+    // Deletes a node and all its descendants in one statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            DELETE FROM cv_node
+            WHERE path <@ (SELECT path FROM cv_node WHERE cv_id = :cvId AND id = :id)
+            """, nativeQuery = true)
+    int deleteSubtree(String cvId, String id);
 
-    List<CvNode> findByType(CvNode.NodeType type);
+    // Re-parents a node and shifts the positions of its whole subtree in one statement; the path
+    // triggers rewrite the paths below it. Unpositioned nodes stay unpositioned.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE cv_node
+            SET parent_id = CASE WHEN id = :id THEN :parentId ELSE parent_id END,
+                position_x = position_x + :dx,
+                position_y = position_y + :dy,
+                updated_at = now()
+            WHERE path <@ (SELECT path FROM cv_node WHERE cv_id = :cvId AND id = :id)
+            """, nativeQuery = true)
+    int moveSubtree(String cvId, String id, String parentId, int dx, int dy);
 
     // DTO queries (for reads)
     @Query("""
             SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
-                n.id, n.type, n.parent.id, n.label, n.description,
-                n.attributes, n.positionX, n.positionY
+                n.id, n.type, n.parentId, n.label, n.description,
+                n.attributesJson, n.positionX, n.positionY
+            )
+            FROM CvNode n
+            WHERE n.cvId = :cvId
+            ORDER BY n.createdAt
+            """)
+    List<CvNodeDto> findAllAsDto(String cvId);
+
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
+                n.id, n.type, n.parentId, n.label, n.description,
+                n.attributesJson, n.positionX, n.positionY
+            )
+            FROM CvNode n
+            WHERE n.cvId = :cvId AND n.id = :id
+            """)
+    Optional<CvNodeDto> findByIdAsDto(String cvId, String id);
+
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
+                n.id, n.type, n.parentId, n.label, n.description,
+                n.attributesJson, n.positionX, n.positionY
+            )
+            FROM CvNode n
+            WHERE n.cvId = :cvId AND n.parentId = :parentId
+            ORDER BY n.createdAt
+            """)
+    List<CvNodeDto> findByParentIdAsDto(String cvId, String parentId);
+
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
+                n.id, n.type, n.parentId, n.label, n.description,
+                n.attributesJson, n.positionX, n.positionY
+            )
+            FROM CvNode n
+            WHERE n.cvId = :cvId
+              AND (LOWER(n.label) LIKE LOWER(CONCAT('%', :query, '%'))
+                OR LOWER(n.description) LIKE LOWER(CONCAT('%', :query, '%')))
+            ORDER BY n.createdAt, n.id
+            LIMIT :limit OFFSET :offset
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_TIMEOUT, value = SEARCH_TIMEOUT_SECONDS))
+    List<CvNodeDto> search(String cvId, String query, int limit, int offset);
+
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeRefDto(
+                n.id, n.type, n.parentId, n.label
+            )
+            FROM CvNode n
+            WHERE n.cvId = :cvId
+            ORDER BY n.createdAt
+            """)
+    List<CvNodeRefDto> findAllAsRefDto(String cvId);
+
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
+                n.id, n.type, n.parentId, n.label, n.description,
+                n.attributesJson, n.positionX, n.positionY
+            )
+            FROM CvNode n, CvNode r
+            WHERE r.cvId = :cvId AND r.id = :id
+              AND n.cvId = :cvId AND n.id <> r.id
+              AND ltree_descendant_of(n.path, r.path)
+            ORDER BY n.createdAt
+            """)
+    List<CvNodeDto> findDescendantsAsDto(String cvId, String id);
+
+    // Viewport: GiST scan on idx_cv_node_position (the IS NOT NULL conditions select the partial index)
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
+                n.id, n.type, n.parentId, n.label, n.description,
+                n.attributesJson, n.positionX, n.positionY
             )
             FROM CvNode n
+            WHERE n.cvId = :cvId
+              AND n.positionX IS NOT NULL AND n.positionY IS NOT NULL
+              AND point_in_box(n.positionX, n.positionY, :minX, :minY, :maxX, :maxY)
             ORDER BY n.createdAt
             """)
-    List<CvNodeDto> findAllAsDto();
+    List<CvNodeDto> findInBoxAsDto(String cvId, int minX, int minY, int maxX, int maxY);
 
+    // Summary projections (NodeProjection.SUMMARY): description and attributes are not read
     @Query("""
             SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
-                n.id, n.type, n.parent.id, n.label, n.description,
-                n.attributes, n.positionX, n.positionY
+                n.id, n.type, n.parentId, n.label, n.positionX, n.positionY
             )
             FROM CvNode n
-            WHERE n.id = :id
+            WHERE n.cvId = :cvId
+            ORDER BY n.createdAt
             """)
-    Optional<CvNodeDto> findByIdAsDto(String id);
+    List<CvNodeDto> findAllAsSummaryDto(String cvId);
 
     @Query("""
             SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
-                n.id, n.type, n.parent.id, n.label, n.description,
-                n.attributes, n.positionX, n.positionY
+                n.id, n.type, n.parentId, n.label, n.positionX, n.positionY
             )
             FROM CvNode n
-            WHERE n.parent.id = :parentId
+            WHERE n.cvId = :cvId AND n.id = :id
+            """)
+    Optional<CvNodeDto> findByIdAsSummaryDto(String cvId, String id);
+
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
+                n.id, n.type, n.parentId, n.label, n.positionX, n.positionY
+            )
+            FROM CvNode n
+            WHERE n.cvId = :cvId AND n.parentId = :parentId
             ORDER BY n.createdAt
             """)
-    List<CvNodeDto> findByParentIdAsDto(String parentId);
+    List<CvNodeDto> findByParentIdAsSummaryDto(String cvId, String parentId);
 
     @Query("""
             SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
-                n.id, n.type, n.parent.id, n.label, n.description,
-                n.attributes, n.positionX, n.positionY
+                n.id, n.type, n.parentId, n.label, n.positionX, n.positionY
+            )
+            FROM CvNode n, CvNode r
+            WHERE r.cvId = :cvId AND r.id = :id
+              AND n.cvId = :cvId AND n.id <> r.id
+              AND ltree_descendant_of(n.path, r.path)
+            ORDER BY n.createdAt
+            """)
+    List<CvNodeDto> findDescendantsAsSummaryDto(String cvId, String id);
+
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeDto(
+                n.id, n.type, n.parentId, n.label, n.positionX, n.positionY
+            )
+            FROM CvNode n
+            WHERE n.cvId = :cvId
+              AND n.positionX IS NOT NULL AND n.positionY IS NOT NULL
+              AND point_in_box(n.positionX, n.positionY, :minX, :minY, :maxX, :maxY)
+            ORDER BY n.createdAt
+            """)
+    List<CvNodeDto> findInBoxAsSummaryDto(String cvId, int minX, int minY, int maxX, int maxY);
+
+    // Root first, parent last
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.dto.CvNodeRefDto(
+                a.id, a.type, a.parentId, a.label
+            )
+            FROM CvNode a, CvNode n
+            WHERE n.cvId = :cvId AND n.id = :id
+              AND a.cvId = :cvId AND a.id <> n.id
+              AND ltree_descendant_of(n.path, a.path)
+            ORDER BY ltree_depth(a.path)
+            """)
+    List<CvNodeRefDto> findAncestorsAsRefDto(String cvId, String id);
+
+    // Aggregates maintained by the V7 triggers
+    @Query(value = """
+            SELECT technology, item_count AS itemCount, first_year AS firstYear, last_year AS lastYear,
+                   current_count > 0 AS current
+            FROM cv_technology_stats
+            WHERE cv_id = :cvId
+            ORDER BY item_count DESC, technology
+            """, nativeQuery = true)
+    List<TechnologyCount> findTechnologyStats(String cvId);
+
+    record ProficiencyCount(String proficiency, int skillCount) {}
+
+    @Query(value = """
+            SELECT proficiency, skill_count AS skillCount
+            FROM cv_proficiency_stats
+            WHERE cv_id = :cvId
+            ORDER BY skill_count DESC, proficiency
+            """, nativeQuery = true)
+    List<ProficiencyCount> findProficiencyStats(String cvId);
+
+    record CvNodeCount(String cvId, long nodeCount, Instant lastUpdate) {}
+
+    // Per CV: number of nodes and latest update, for checking a graph snapshot against the table
+    @Query("""
+            SELECT new de.fschmidt.virtualcv.repository.CvNodeRepository$CvNodeCount(
+                n.cvId, COUNT(n), MAX(n.updatedAt)
             )
             FROM CvNode n
-            WHERE LOWER(n.label) LIKE LOWER(CONCAT('%', :query, '%'))
-               OR LOWER(n.description) LIKE LOWER(CONCAT('%', :query, '%'))
+            GROUP BY n.cvId
             """)
-    List<CvNodeDto> search(String query);
+    List<CvNodeCount> countNodesByCv();
+
+    // Recomputes both aggregates of the CV from its nodes, returns the number of technologies
+    @Query(value = "SELECT cv_stats_rebuild(:cvId)", nativeQuery = true)
+    int rebuildStats(String cvId);
 }
@@ -0,0 +1,27 @@
+package de.fschmidt.virtualcv.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small helpers for the per-CV in-memory caches.
+ */
+final class Caches {
+
+    private Caches() {
+    }
+
+    /**
+     * Thread-safe map that evicts the least recently accessed entry beyond {@code maxEntries}.
+     * Used for state that is cached per CV, so memory stays bounded by the number of hot CVs.
+     */
+    static <K, V> Map<K, V> lru(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+}
@@ -0,0 +1,241 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeRefDto;
+import de.fschmidt.virtualcv.dto.CvNodeStatsDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable, int-indexed snapshot of the node tree.
+ * <p>
+ * Node IDs are mapped to dense ints. Children are stored in CSR layout ({@code childOffsets} /
+ * {@code children}) and every node gets an Euler-tour interval {@code [enter, exit]} over the
+ * pre-order numbering, so a subtree is a contiguous range: ancestor checks are O(1) and per-type
+ * descendant counts are O(1) via prefix sums. Nodes whose parent is missing are treated as roots.
+ */
+public final class CvGraphIndex {
+
+    private static final NodeType[] TYPES = NodeType.values();
+
+    private final Map<String, Integer> indexById;
+    private final String[] ids;
+    private final String[] labels;
+    private final byte[] types;
+    private final int[] parent;
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int[] enter;
+    private final int[] exit;
+    private final int[] depth;
+    private final int[] height;
+    // pre-order position -> node
+    private final int[] order;
+    // typePrefix[t][i] = number of nodes of type t among the first i nodes in pre-order
+    private final int[][] typePrefix;
+
+    public CvGraphIndex(Collection<CvNodeRefDto> nodes) {
+        int n = nodes.size();
+        indexById = new HashMap<>(n * 2);
+        ids = new String[n];
+        labels = new String[n];
+        types = new byte[n];
+        parent = new int[n];
+
+        int i = 0;
+        for (CvNodeRefDto node : nodes) {
+            indexById.put(node.id(), i);
+            ids[i] = node.id();
+            labels[i] = node.label();
+            types[i] = (byte) node.type().ordinal();
+            i++;
+        }
+
+        i = 0;
+        int[] childCount = new int[n];
+        for (CvNodeRefDto node : nodes) {
+            Integer p = node.parentId() != null ? indexById.get(node.parentId()) : null;
+            parent[i] = p != null ? p : -1;
+            if (p != null) {
+                childCount[p]++;
+            }
+            i++;
+        }
+
+        childOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            childOffsets[v + 1] = childOffsets[v] + childCount[v];
+        }
+        children = new int[childOffsets[n]];
+        int[] fill = new int[n];
+        for (int v = 0; v < n; v++) {
+            if (parent[v] >= 0) {
+                children[childOffsets[parent[v]] + fill[parent[v]]++] = v;
+            }
+        }
+
+        enter = new int[n];
+        exit = new int[n];
+        depth = new int[n];
+        height = new int[n];
+        order = new int[n];
+        int visited = traverse();
+
+        typePrefix = new int[TYPES.length][visited + 1];
+        for (int pos = 0; pos < visited; pos++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                typePrefix[t][pos + 1] = typePrefix[t][pos];
+            }
+            typePrefix[types[order[pos]]][pos + 1]++;
+        }
+    }
+
+    /**
+     * Iterative DFS from all roots assigning pre-order intervals, depth and subtree height.
+     * Nodes on a parent cycle are never reached and keep {@code enter = -1}.
+     *
+     * @return number of visited nodes
+     */
+    private int traverse() {
+        int n = ids.length;
+        Arrays.fill(enter, -1);
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        int pos = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (parent[root] >= 0) {
+                continue;
+            }
+            int top = 0;
+            stack[top] = root;
+            next[root] = childOffsets[root];
+            enter[root] = pos;
+            order[pos++] = root;
+
+            while (top >= 0) {
+                int v = stack[top];
+                if (next[v] < childOffsets[v + 1]) {
+                    int c = children[next[v]++];
+                    depth[c] = depth[v] + 1;
+                    next[c] = childOffsets[c];
+                    enter[c] = pos;
+                    order[pos++] = c;
+                    stack[++top] = c;
+                } else {
+                    exit[v] = pos - 1;
+                    top--;
+                    if (top >= 0) {
+                        int p = stack[top];
+                        height[p] = Math.max(height[p], height[v] + 1);
+                    }
+                }
+            }
+        }
+        return pos;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(String id) {
+        return indexById.containsKey(id);
+    }
+
+    /**
+     * @return true if {@code ancestorId} is a proper ancestor of {@code id}
+     */
+    public boolean isAncestor(String ancestorId, String id) {
+        Integer a = indexById.get(ancestorId);
+        Integer v = indexById.get(id);
+        if (a == null || v == null || a.equals(v) || enter[a] < 0 || enter[v] < 0) {
+            return false;
+        }
+        return enter[a] <= enter[v] && exit[v] <= exit[a];
+    }
+
+    /**
+     * Path from the root down to the node's parent (excluding the node itself).
+     */
+    public Optional<List<CvNodeRefDto>> ancestors(String id) {
+        Integer v = indexById.get(id);
+        if (v == null) {
+            return Optional.empty();
+        }
+        List<CvNodeRefDto> path = new ArrayList<>(depth[v]);
+        int guard = ids.length;
+        for (int p = parent[v]; p >= 0 && guard-- > 0; p = parent[p]) {
+            path.add(ref(p));
+        }
+        Collections.reverse(path);
+        return Optional.of(path);
+    }
+
+    public Optional<CvNodeStatsDto> stats(String id) {
+        Integer v = indexById.get(id);
+        if (v == null) {
+            return Optional.empty();
+        }
+        Map<NodeType, Integer> byType = new EnumMap<>(NodeType.class);
+        int total = 0;
+        if (enter[v] >= 0) {
+            for (int t = 0; t < TYPES.length; t++) {
+                // the node itself sits at enter[v], its descendants follow until exit[v]
+                int count = typePrefix[t][exit[v] + 1] - typePrefix[t][enter[v] + 1];
+                if (count > 0) {
+                    byType.put(TYPES[t], count);
+                    total += count;
+                }
+            }
+        }
+        return Optional.of(new CvNodeStatsDto(ids[v], depth[v], total, byType, height[v]));
+    }
+
+    /**
+     * IDs of the node and all its descendants, or an empty list if unknown.
+     */
+    public List<String> subtreeIds(String id) {
+        Integer v = indexById.get(id);
+        if (v == null) {
+            return List.of();
+        }
+        if (enter[v] >= 0) {
+            List<String> result = new ArrayList<>(exit[v] - enter[v] + 1);
+            for (int pos = enter[v]; pos <= exit[v]; pos++) {
+                result.add(ids[order[pos]]);
+            }
+            return result;
+        }
+        // Unreachable from any root (parent cycle): walk children with a visited set
+        List<String> result = new ArrayList<>();
+        boolean[] seen = new boolean[ids.length];
+        int[] stack = new int[ids.length];
+        int top = 0;
+        stack[top] = v;
+        seen[v] = true;
+        while (top >= 0) {
+            int u = stack[top--];
+            result.add(ids[u]);
+            for (int c = childOffsets[u]; c < childOffsets[u + 1]; c++) {
+                if (!seen[children[c]]) {
+                    seen[children[c]] = true;
+                    stack[++top] = children[c];
+                }
+            }
+        }
+        return result;
+    }
+
+    private CvNodeRefDto ref(int v) {
+        return new CvNodeRefDto(ids[v], TYPES[types[v]], parent[v] >= 0 ? ids[parent[v]] : null, labels[v]);
+    }
+}
@@ -0,0 +1,84 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.CvNodeRefDto;
+import de.fschmidt.virtualcv.dto.CvNodeStatsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps an in-memory {@link CvGraphIndex} per CV for ancestry and aggregate queries.
+ * <p>
+ * A CV's node structure is held in a {@link CvStateCache}: loaded from the database once and then
+ * kept current from {@link CvNodeChangedEvent}s ({@code app.cache.max-cvs} CVs at most). The
+ * compact index itself is rebuilt lazily (O(n), no DB access) on the first read after a change.
+ */
+@Service
+public class CvGraphIndexService {
+
+    private static final CvGraphIndex EMPTY = new CvGraphIndex(List.of());
+
+    private final CvStateCache<CvGraph> graphs;
+
+    public CvGraphIndexService(CvSnapshotService snapshots, @Value("${app.cache.max-cvs:256}") int maxCvs) {
+        this.graphs = new CvStateCache<>(snapshots, maxCvs, cvId -> new CvGraph(snapshots.loadAllRefs(cvId)),
+                CvGraph::apply);
+    }
+
+    public Optional<List<CvNodeRefDto>> getAncestors(String cvId, String id) {
+        return currentIndex(cvId).ancestors(id);
+    }
+
+    public Optional<CvNodeStatsDto> getStats(String cvId, String id) {
+        return currentIndex(cvId).stats(id);
+    }
+
+    public CvGraphIndex currentIndex(String cvId) {
+        return graphs.read(cvId, CvGraph::currentIndex, EMPTY);
+    }
+
+    @TransactionalEventListener
+    public void onNodeChanged(CvNodeChangedEvent event) {
+        graphs.apply(event);
+    }
+
+    /**
+     * Node structure of one CV. Insertion order = creation order, like findAllAsDto.
+     */
+    private static final class CvGraph {
+
+        private final Map<String, CvNodeRefDto> nodes = new LinkedHashMap<>();
+        private CvGraphIndex index;
+
+        CvGraph(List<CvNodeRefDto> loaded) {
+            loaded.forEach(node -> nodes.put(node.id(), node));
+        }
+
+        CvGraphIndex currentIndex() {
+            if (index == null) {
+                index = new CvGraphIndex(nodes.values());
+            }
+            return index;
+        }
+
+        boolean apply(CvNodeChangedEvent event) {
+            switch (event.change()) {
+                // Refs carry no positions, only the moved node's parent changed
+                case CREATED, UPDATED, MOVED -> nodes.put(event.nodeId(), toRef(event.node()));
+                case DELETED -> currentIndex().subtreeIds(event.nodeId()).forEach(nodes::remove);
+            }
+            index = null;
+            return true;
+        }
+    }
+
+    private static CvNodeRefDto toRef(CvNodeDto node) {
+        return new CvNodeRefDto(node.id(), node.type(), node.parentId(), node.label());
+    }
+}
@@ -0,0 +1,453 @@
+package de.fschmidt.virtualcv.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.NodeAttributes;
+import de.fschmidt.virtualcv.domain.NodeAttributesCodec;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodeProjection;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Immutable, memory-mapped file with the nodes of many CVs (see {@link CvSnapshotService}).
+ * <p>
+ * Layout, big-endian, offsets from the start of the file:
+ * <pre>
+ * header     magic, format version, watermark (epoch microseconds), node count, CV count,
+ *            directory offset, index offset, CRC32C of everything after the header
+ * records    one per node, grouped by CV, in creation order like findAllAsDto
+ * directory  per CV: id, offset and length of its records, node count, position of its index entries
+ * index      record offset of every node, per CV (ids are unique per CV only) sorted by the
+ *            UTF-8 bytes of the node id
+ * </pre>
+ * A record is its length, then id, type, parent id, label, description, attributes (JSON) and
+ * position. Strings are length-prefixed UTF-8, length -1 for null. Records hold no offsets, so the
+ * records of a CV are copied into the next file as they are.
+ * <p>
+ * Only the directory is read onto the heap. A lookup by id binary-searches the CV's index entries
+ * comparing the mapped bytes, and nodes are decoded from the mapping on every read; a summary read skips the
+ * description and attributes. Files are limited to 2 GB (one mapping, int offsets).
+ */
+final class CvGraphSnapshot {
+
+    static final int MAGIC = 0x56435347; // "VCSG"
+    // Bump on any change to the layout or to the NodeType constants (stored as ordinals)
+    static final int FORMAT_VERSION = 2;
+    static final int HEADER_SIZE = 36;
+
+    private static final NodeType[] TYPES = NodeType.values();
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int HAS_X = 1;
+    private static final int HAS_Y = 2;
+
+    /**
+     * @param indexStart Position of the CV's first entry in the index
+     */
+    private record CvRange(int offset, int length, int nodeCount, int indexStart) {
+    }
+
+    private final ByteBuffer buffer;
+    private final Instant watermark;
+    private final int nodeCount;
+    private final int indexOffset;
+    private final Map<String, CvRange> cvs;
+
+    private CvGraphSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.watermark = Instant.EPOCH.plus(buffer.getLong(8), ChronoUnit.MICROS);
+        this.nodeCount = buffer.getInt(16);
+        int cvCount = buffer.getInt(20);
+        this.indexOffset = buffer.getInt(28);
+        Map<String, CvRange> directory = new LinkedHashMap<>();
+        Cursor in = new Cursor(buffer.getInt(24));
+        for (int i = 0; i < cvCount; i++) {
+            directory.put(in.string(), new CvRange(in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+        }
+        this.cvs = Collections.unmodifiableMap(directory);
+    }
+
+    /**
+     * Maps the file and verifies its header and checksum.
+     *
+     * @throws IOException if the file cannot be read, or is not a valid snapshot of this format version
+     */
+    static CvGraphSnapshot open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected snapshot size " + size);
+            }
+            // The mapping stays valid after the channel is closed and the file is replaced
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a graph snapshot");
+        }
+        int version = buffer.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + version);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        if ((int) crc.getValue() != buffer.getInt(32)) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        return new CvGraphSnapshot(buffer);
+    }
+
+    /**
+     * Changes committed after this time may be missing.
+     */
+    Instant watermark() {
+        return watermark;
+    }
+
+    Set<String> cvIds() {
+        return cvs.keySet();
+    }
+
+    /**
+     * @return the number of nodes of the CV, 0 if it is not in the snapshot
+     */
+    int nodeCount(String cvId) {
+        CvRange range = cvs.get(cvId);
+        return range != null ? range.nodeCount() : 0;
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return the CV's nodes in creation order, empty if the CV is not in the snapshot
+     */
+    List<CvNodeDto> nodes(String cvId, NodeProjection projection) {
+        CvRange range = cvs.get(cvId);
+        if (range == null) {
+            return List.of();
+        }
+        List<CvNodeDto> nodes = new ArrayList<>(range.nodeCount());
+        int offset = range.offset();
+        for (int i = 0; i < range.nodeCount(); i++) {
+            nodes.add(decode(offset, projection));
+            offset += Integer.BYTES + buffer.getInt(offset);
+        }
+        return nodes;
+    }
+
+    Optional<CvNodeDto> node(String cvId, String id, NodeProjection projection) {
+        CvRange range = cvs.get(cvId);
+        if (range == null) {
+            return Optional.empty();
+        }
+        int offset = find(range, id.getBytes(UTF_8));
+        return offset >= 0 ? Optional.of(decode(offset, projection)) : Optional.empty();
+    }
+
+    // Record offset of the CV's node, -1 if there is none
+    private int find(CvRange range, byte[] id) {
+        int low = range.indexStart();
+        int high = range.indexStart() + range.nodeCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = buffer.getInt(indexOffset + mid * Integer.BYTES);
+            int cmp = compareId(offset, id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    // Compares the id of the record at offset with id, unsigned byte by byte like Arrays.compareUnsigned
+    private int compareId(int offset, byte[] id) {
+        int length = buffer.getInt(offset + Integer.BYTES);
+        int start = offset + 2 * Integer.BYTES;
+        int common = Math.min(length, id.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(start + i), id[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, id.length);
+    }
+
+    private CvNodeDto decode(int offset, NodeProjection projection) {
+        Cursor in = new Cursor(offset + Integer.BYTES);
+        String id = in.string();
+        NodeType type = TYPES[in.readByte()];
+        String parentId = in.string();
+        String label = in.string();
+        String description = null;
+        NodeAttributes attributes = null;
+        if (projection == NodeProjection.FULL) {
+            description = in.string();
+            attributes = in.attributes(type);
+        } else {
+            in.skipString();
+            in.skipString();
+        }
+        int flags = in.readByte();
+        Integer positionX = (flags & HAS_X) != 0 ? in.readInt() : null;
+        Integer positionY = (flags & HAS_Y) != 0 ? in.readInt() : null;
+        return new CvNodeDto(id, type, parentId, label, description, attributes, positionX, positionY);
+    }
+
+    /**
+     * Sequential reads with absolute gets, so concurrent readers share the buffer without copying it.
+     */
+    private final class Cursor {
+
+        private int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        int readInt() {
+            int value = buffer.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        int readByte() {
+            return buffer.get(position++);
+        }
+
+        String string() {
+            byte[] bytes = bytes();
+            return bytes != null ? new String(bytes, UTF_8) : null;
+        }
+
+        void skipString() {
+            int length = readInt();
+            if (length > 0) {
+                position += length;
+            }
+        }
+
+        NodeAttributes attributes(NodeType type) {
+            byte[] json = bytes();
+            if (json == null) {
+                return null;
+            }
+            try (JsonParser parser = JSON.createParser(json)) {
+                return NodeAttributesCodec.read(type, parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Invalid attributes of " + type + " node in snapshot", e);
+            }
+        }
+
+        private byte[] bytes() {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return bytes;
+        }
+    }
+
+    /**
+     * Writes a new snapshot next to {@code file} and moves it into place on {@link #finish}, so
+     * readers of the old file are never affected. Closing an unfinished writer deletes its output.
+     */
+    static final class Writer implements Closeable {
+
+        private record IndexEntry(byte[] id, int offset) {
+        }
+
+        private record DirectoryEntry(String cvId, int offset, int length, int nodeCount, int indexStart) {
+        }
+
+        private final Path file;
+        private final Path temp;
+        private final FileChannel channel;
+        private final CRC32C crc = new CRC32C();
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(512);
+        private final DataOutputStream record = new DataOutputStream(recordBytes);
+        private final List<IndexEntry> index = new ArrayList<>();
+        private final List<DirectoryEntry> directory = new ArrayList<>();
+        private long position = HEADER_SIZE;
+        private boolean finished;
+
+        Writer(Path file) throws IOException {
+            this.file = file;
+            // Unique name: during a rollout the old and the new pod may both write to the shared volume
+            this.temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+        }
+
+        /**
+         * @param nodes All nodes of the CV in creation order, as read with {@link NodeProjection#FULL}
+         */
+        void add(String cvId, List<CvNodeDto> nodes) throws IOException {
+            long start = position;
+            int indexStart = index.size();
+            for (CvNodeDto node : nodes) {
+                recordBytes.reset();
+                byte[] id = node.id().getBytes(UTF_8);
+                writeBytes(record, id);
+                record.writeByte(node.type().ordinal());
+                writeString(record, node.parentId());
+                writeString(record, node.label());
+                writeString(record, node.description());
+                writeString(record, attributesJson(node.attributes()));
+                record.writeByte((node.positionX() != null ? HAS_X : 0) | (node.positionY() != null ? HAS_Y : 0));
+                if (node.positionX() != null) {
+                    record.writeInt(node.positionX());
+                }
+                if (node.positionY() != null) {
+                    record.writeInt(node.positionY());
+                }
+                index.add(new IndexEntry(id, offset(position)));
+                out.writeInt(recordBytes.size());
+                recordBytes.writeTo(out);
+                position += Integer.BYTES + recordBytes.size();
+            }
+            directory.add(new DirectoryEntry(cvId, offset(start), offset(position - start), nodes.size(), indexStart));
+        }
+
+        /**
+         * Copies the records of a CV from another snapshot without decoding them.
+         */
+        void copy(CvGraphSnapshot from, String cvId) throws IOException {
+            CvRange range = from.cvs.get(cvId);
+            if (range == null) {
+                return;
+            }
+            long start = position;
+            int indexStart = index.size();
+            int offset = range.offset();
+            for (int i = 0; i < range.nodeCount(); i++) {
+                byte[] id = new byte[from.buffer.getInt(offset + Integer.BYTES)];
+                from.buffer.get(offset + 2 * Integer.BYTES, id);
+                index.add(new IndexEntry(id, offset(start + offset - range.offset())));
+                offset += Integer.BYTES + from.buffer.getInt(offset);
+            }
+            Channels.newChannel(out).write(from.buffer.slice(range.offset(), range.length()));
+            position += range.length();
+            directory.add(new DirectoryEntry(cvId, offset(start), range.length(), range.nodeCount(), indexStart));
+        }
+
+        /**
+         * Writes directory, index and header, syncs the file and replaces {@code file} with it.
+         *
+         * @param watermark Changes committed after this time may be missing from the snapshot
+         */
+        void finish(Instant watermark) throws IOException {
+            int directoryOffset = offset(position);
+            for (DirectoryEntry entry : directory) {
+                byte[] cvId = entry.cvId().getBytes(UTF_8);
+                writeBytes(out, cvId);
+                out.writeInt(entry.offset());
+                out.writeInt(entry.length());
+                out.writeInt(entry.nodeCount());
+                out.writeInt(entry.indexStart());
+                position += 5 * Integer.BYTES + cvId.length;
+                index.subList(entry.indexStart(), entry.indexStart() + entry.nodeCount())
+                        .sort((a, b) -> Arrays.compareUnsigned(a.id(), b.id()));
+            }
+            int indexOffset = offset(position);
+            for (IndexEntry entry : index) {
+                out.writeInt(entry.offset());
+            }
+            offset(position + (long) index.size() * Integer.BYTES);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(ChronoUnit.MICROS.between(Instant.EPOCH, watermark))
+                    .putInt(index.size())
+                    .putInt(directory.size())
+                    .putInt(directoryOffset)
+                    .putInt(indexOffset)
+                    .putInt((int) crc.getValue())
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private static int offset(long position) throws IOException {
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds " + Integer.MAX_VALUE + " bytes");
+            }
+            return (int) position;
+        }
+
+        // Empty attributes are kept as {} rather than null, like the database row
+        private static String attributesJson(NodeAttributes attributes) {
+            if (attributes == null) {
+                return null;
+            }
+            String json = NodeAttributesCodec.toJson(attributes);
+            return json != null ? json : "{}";
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            writeBytes(out, value != null ? value.getBytes(UTF_8) : null);
+        }
+
+        private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+            if (bytes == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
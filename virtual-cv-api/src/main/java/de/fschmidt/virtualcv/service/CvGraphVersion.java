@@ -0,0 +1,47 @@
+package de.fschmidt.virtualcv.service;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of each CV's node graph, bumped after every committed command on that CV.
+ * <p>
+ * Caches key their entries by this version instead of being cleared. Read the version
+ * <em>before</em> loading data so an entry can never be newer than its key claims.
+ */
+@Component
+public class CvGraphVersion {
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    // System.nanoTime() of each CV's last committed command
+    private final Map<String, Long> changedAt = new ConcurrentHashMap<>();
+
+    public long current(String cvId) {
+        AtomicLong version = versions.get(cvId);
+        return version != null ? version.get() : 0;
+    }
+
+    /**
+     * @return whether a command on the CV committed less than {@code window} ago, e.g. one that a
+     * read replica may not have applied yet
+     */
+    public boolean changedWithin(String cvId, Duration window) {
+        Long at = changedAt.get(cvId);
+        return at != null && System.nanoTime() - at < window.toNanos();
+    }
+
+    // Runs before the other after-commit listeners so they already see the new version
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void onNodeChanged(CvNodeChangedEvent event) {
+        changedAt.put(event.cvId(), System.nanoTime());
+        versions.computeIfAbsent(event.cvId(), k -> new AtomicLong()).incrementAndGet();
+    }
+}
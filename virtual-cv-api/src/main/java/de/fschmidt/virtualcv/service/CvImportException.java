@@ -0,0 +1,16 @@
+package de.fschmidt.virtualcv.service;
+
+/**
+ * Thrown when an import payload is malformed or references unknown parents.
+ * Nothing is written when this is thrown.
+ */
+public class CvImportException extends RuntimeException {
+
+    public CvImportException(String message) {
+        super(message);
+    }
+
+    public CvImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
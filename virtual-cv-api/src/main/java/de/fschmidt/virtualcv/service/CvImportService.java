@@ -0,0 +1,364 @@
+package de.fschmidt.virtualcv.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.fschmidt.virtualcv.domain.CvNode;
+import de.fschmidt.virtualcv.domain.NodeAttributesCodec;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.ImportResultDto;
+import de.fschmidt.virtualcv.dto.ImportResultDto.ImportMode;
+import jakarta.persistence.EntityManagerFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Bulk import of CV graphs through the PostgreSQL COPY protocol.
+ * <p>
+ * The payload is parsed as a stream (one node at a time) and written to a temporary staging table
+ * with {@link CopyIn} in chunks, so heap usage does not grow with the payload apart from the id set
+ * used to check parent references. The staging rows are then merged into {@code cv_node} with a
+ * single statement in the same transaction.
+ */
+@Service
+public class CvImportService {
+
+    // Flush the COPY buffer roughly every 64 KB
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE cv_node_import (
+                seq BIGSERIAL,
+                id VARCHAR(50) NOT NULL,
+                type VARCHAR(20) NOT NULL,
+                parent_id VARCHAR(50),
+                label VARCHAR(255) NOT NULL,
+                description TEXT,
+                attributes JSONB,
+                position_x INTEGER,
+                position_y INTEGER
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_STAGING = """
+            COPY cv_node_import (id, type, parent_id, label, description, attributes, position_x, position_y)
+            FROM STDIN (FORMAT csv)
+            """;
+
+    // created_at follows payload order so children keep their order in findAllAsDto
+    private static final String MERGE = """
+            INSERT INTO cv_node (cv_id, id, type, parent_id, label, description, attributes,
+                                 position_x, position_y, created_at, updated_at)
+            SELECT ?, id, type, parent_id, label, description, attributes, position_x, position_y,
+                   now() + seq * INTERVAL '1 microsecond', now()
+            FROM cv_node_import
+            ORDER BY seq
+            ON CONFLICT (cv_id, id) DO UPDATE SET
+                type = EXCLUDED.type,
+                parent_id = EXCLUDED.parent_id,
+                label = EXCLUDED.label,
+                description = EXCLUDED.description,
+                attributes = EXCLUDED.attributes,
+                position_x = EXCLUDED.position_x,
+                position_y = EXCLUDED.position_y,
+                updated_at = now()
+            """;
+
+    // Rows may arrive before their parent, so the path triggers are off for the import and the
+    // paths of the CV are recomputed once all rows are in (see V6 migration)
+    private static final String DEFER_PATHS = "SELECT set_config('virtualcv.defer_path', 'on', true)";
+
+    // Same for the technology and proficiency stats: rebuilt for the CV instead of one delta per row (V7)
+    private static final String DEFER_STATS = "SELECT set_config('virtualcv.defer_stats', 'on', true)";
+
+    private static final String REBUILD_STATS = "SELECT cv_stats_rebuild(?)";
+
+    private static final String RESET_PATHS = "UPDATE cv_node SET path = NULL WHERE cv_id = ?";
+
+    private static final String COMPUTE_PATHS = """
+            WITH RECURSIVE tree AS (
+                SELECT cv_id, id, text2ltree(node_key::text) AS path
+                FROM cv_node
+                WHERE cv_id = ? AND parent_id IS NULL
+                UNION ALL
+                SELECT c.cv_id, c.id, t.path || c.node_key::text
+                FROM cv_node c
+                JOIN tree t ON c.cv_id = t.cv_id AND c.parent_id = t.id
+            )
+            UPDATE cv_node n SET path = tree.path FROM tree WHERE n.cv_id = tree.cv_id AND n.id = tree.id
+            """;
+
+    // Nodes not reachable from a root are part of a parent cycle
+    private static final String UNREACHABLE = "SELECT id FROM cv_node WHERE cv_id = ? AND path IS NULL LIMIT 10";
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CvImportService(DataSource dataSource, ObjectMapper objectMapper, ApplicationEventPublisher events,
+                           EntityManagerFactory entityManagerFactory) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Imports write past Hibernate, so the second-level cache does not see them. Which nodes
+     * changed is not tracked; the whole region is evicted once the import is committed.
+     */
+    @TransactionalEventListener
+    public void onNodeChanged(CvNodeChangedEvent event) {
+        if (event.change() == CvNodeChangedEvent.Change.IMPORTED) {
+            entityManagerFactory.getCache().evict(CvNode.class);
+        }
+    }
+
+    /**
+     * @param body   A JSON array of nodes, a {@code CvDataDto} object as returned by {@code GET /cv},
+     *               or NDJSON (one node per line)
+     * @param ndjson Whether the body is NDJSON
+     */
+    @Transactional
+    public ImportResultDto importNodes(String cvId, InputStream body, boolean ndjson, ImportMode mode) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING);
+                statement.execute(DEFER_PATHS);
+                statement.execute(DEFER_STATS);
+            }
+
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING);
+            int imported;
+            Set<String> unresolvedParents;
+            try {
+                ImportStream stream = new ImportStream(copyIn);
+                stream.copy(parser, ndjson);
+                copyIn.endCopy();
+                imported = stream.count;
+                unresolvedParents = stream.unresolvedParents;
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+
+            if (mode == ImportMode.REPLACE) {
+                if (!unresolvedParents.isEmpty()) {
+                    throw new CvImportException("Unknown parent ids: " + sample(unresolvedParents));
+                }
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM cv_node WHERE cv_id = ?")) {
+                    delete.setString(1, cvId);
+                    delete.executeUpdate();
+                }
+            } else {
+                checkExisting(connection, cvId, unresolvedParents);
+            }
+            try (PreparedStatement merge = connection.prepareStatement(MERGE)) {
+                merge.setString(1, cvId);
+                merge.executeUpdate();
+            }
+            computePaths(connection, cvId);
+            try (PreparedStatement rebuild = connection.prepareStatement(REBUILD_STATS)) {
+                rebuild.setString(1, cvId);
+                rebuild.execute();
+            }
+
+            events.publishEvent(CvNodeChangedEvent.imported(cvId));
+            return new ImportResultDto(imported, mode);
+        } catch (JsonProcessingException e) {
+            throw new CvImportException("Malformed import payload: " + e.getOriginalMessage(), e);
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Import failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void computePaths(Connection connection, String cvId) throws SQLException {
+        for (String sql : new String[]{RESET_PATHS, COMPUTE_PATHS}) {
+            try (PreparedStatement update = connection.prepareStatement(sql)) {
+                update.setString(1, cvId);
+                update.executeUpdate();
+            }
+        }
+        Set<String> unreachable = new HashSet<>();
+        try (PreparedStatement query = connection.prepareStatement(UNREACHABLE)) {
+            query.setString(1, cvId);
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    unreachable.add(rs.getString(1));
+                }
+            }
+        }
+        if (!unreachable.isEmpty()) {
+            throw new CvImportException("Parent cycle involving: " + sample(unreachable));
+        }
+    }
+
+    private void checkExisting(Connection connection, String cvId, Set<String> parentIds) throws SQLException {
+        if (parentIds.isEmpty()) {
+            return;
+        }
+        Set<String> missing = new HashSet<>(parentIds);
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT id FROM cv_node WHERE cv_id = ? AND id = ANY (?)")) {
+            Array ids = connection.createArrayOf("varchar", parentIds.toArray());
+            query.setString(1, cvId);
+            query.setArray(2, ids);
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    missing.remove(rs.getString(1));
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new CvImportException("Unknown parent ids: " + sample(missing));
+        }
+    }
+
+    private static String sample(Set<String> ids) {
+        return ids.stream().limit(10).toList() + (ids.size() > 10 ? " and " + (ids.size() - 10) + " more" : "");
+    }
+
+    /**
+     * Reads nodes one by one, validates them and streams them as CSV rows into COPY.
+     */
+    private final class ImportStream {
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(COPY_CHUNK_SIZE + 4096);
+        private final Set<String> seen = new HashSet<>();
+        private final Set<String> unresolvedParents = new HashSet<>();
+        private int count;
+
+        ImportStream(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        void copy(JsonParser parser, boolean ndjson) throws IOException, SQLException {
+            JsonToken first = parser.nextToken();
+            if (ndjson) {
+                copyNodes(parser, first);
+            } else if (first == JsonToken.START_ARRAY) {
+                copyNodes(parser, parser.nextToken());
+            } else if (first == JsonToken.START_OBJECT) {
+                // CvDataDto as returned by GET /cv: {"nodes": [...]}
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY && "nodes".equals(field)) {
+                        copyNodes(parser, parser.nextToken());
+                        return;
+                    }
+                    parser.skipChildren();
+                }
+                throw new CvImportException("Expected a 'nodes' array");
+            } else if (first != null) {
+                throw new CvImportException("Expected a JSON array or object");
+            }
+        }
+
+        private void copyNodes(JsonParser parser, JsonToken token) throws IOException, SQLException {
+            ObjectReader reader = objectMapper.readerFor(CvNodeDto.class);
+            while (token == JsonToken.START_OBJECT) {
+                add(reader.readValue(parser));
+                if (buffer.length() >= COPY_CHUNK_SIZE) {
+                    flush();
+                }
+                token = parser.nextToken();
+            }
+            if (token != null && token != JsonToken.END_ARRAY) {
+                throw new CvImportException("Expected a node object after node #" + count);
+            }
+            flush();
+        }
+
+        private void add(CvNodeDto node) {
+            count++;
+            validate(node);
+            seen.add(node.id());
+            unresolvedParents.remove(node.id());
+            if (node.parentId() != null && !seen.contains(node.parentId())) {
+                unresolvedParents.add(node.parentId());
+            }
+
+            csv(node.id()).append(',');
+            csv(node.type().name()).append(',');
+            csv(node.parentId()).append(',');
+            csv(node.label()).append(',');
+            csv(node.description()).append(',');
+            csv(NodeAttributesCodec.toJson(node.attributes())).append(',');
+            csv(node.positionX() != null ? node.positionX().toString() : null).append(',');
+            csv(node.positionY() != null ? node.positionY().toString() : null).append('\n');
+        }
+
+        private void validate(CvNodeDto node) {
+            String at = "Node #" + count;
+            if (node.id() == null || node.id().isBlank() || node.id().length() > 50) {
+                throw new CvImportException(at + ": id must be 1-50 characters");
+            }
+            if (node.type() == null) {
+                throw new CvImportException(at + " (" + node.id() + "): type is required");
+            }
+            if (node.label() == null || node.label().isBlank() || node.label().length() > 255) {
+                throw new CvImportException(at + " (" + node.id() + "): label must be 1-255 characters");
+            }
+            if (node.parentId() != null && node.parentId().length() > 50) {
+                throw new CvImportException(at + " (" + node.id() + "): parentId is too long");
+            }
+            if (node.id().equals(node.parentId())) {
+                throw new CvImportException(at + " (" + node.id() + "): node cannot be its own parent");
+            }
+            if (seen.contains(node.id())) {
+                throw new CvImportException(at + ": duplicate id " + node.id());
+            }
+        }
+
+        // CSV format: NULL is an unquoted empty field, every value is quoted with "" escaping
+        private StringBuilder csv(String value) {
+            if (value == null) {
+                return buffer;
+            }
+            buffer.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    buffer.append('"');
+                }
+                buffer.append(c);
+            }
+            return buffer.append('"');
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
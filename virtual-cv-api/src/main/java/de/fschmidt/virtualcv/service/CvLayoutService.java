@@ -0,0 +1,60 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.dto.CvLayoutDto;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodeState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serves {@link GraphLayoutEngine} results, cached per CV, graph version and node state.
+ */
+@Service
+public class CvLayoutService {
+
+    // State key for the initial view
+    private static final String INITIAL = "initial";
+
+    private final CvSnapshotService snapshots;
+    private final GraphLayoutEngine engine;
+    private final CvGraphVersion graphVersion;
+    private final Map<String, CvLayoutDto> cache;
+
+    public CvLayoutService(CvSnapshotService snapshots, GraphLayoutEngine engine, CvGraphVersion graphVersion,
+                           @Value("${app.cache.max-cvs:256}") int maxCvs) {
+        this.snapshots = snapshots;
+        this.engine = engine;
+        this.graphVersion = graphVersion;
+        // Up to four states per CV
+        this.cache = Caches.lru(maxCvs * NodeState.values().length + maxCvs);
+    }
+
+    /**
+     * @param state Node state used for sizing, null for the initial view
+     * @return empty if the CV does not exist, which computes and caches nothing
+     */
+    public Optional<CvLayoutDto> getLayout(String cvId, NodeState state) {
+        String key = cvId + "/" + Optional.ofNullable(state).map(NodeState::value).orElse(INITIAL);
+        long version = graphVersion.current(cvId);
+
+        CvLayoutDto cached = cache.get(key);
+        if (cached != null && cached.version() == version) {
+            return Optional.of(cached);
+        }
+        if (!snapshots.exists(cvId)) {
+            cache.remove(key);
+            return Optional.empty();
+        }
+
+        // Cached under the version, so never read from a possibly lagging replica
+        List<CvNodeDto> nodes = snapshots.loadAllNodes(cvId);
+        CvLayoutDto layout = new CvLayoutDto(version, state, engine.compute(nodes, state));
+        // Keep whichever entry is newer if another request raced us
+        cache.merge(key, layout, (old, fresh) -> fresh.version() >= old.version() ? fresh : old);
+        return Optional.of(layout);
+    }
+}
@@ -0,0 +1,50 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+
+/**
+ * Published by {@link CvNodeService} for every successful command.
+ * Listeners use {@code @TransactionalEventListener} so they only see committed changes.
+ *
+ * @param cvId   The CV the change belongs to
+ * @param change What happened to the node
+ * @param nodeId The affected node (for DELETED and MOVED: the root of the subtree), null for IMPORTED
+ * @param node   The node state after the command, null for DELETED and IMPORTED
+ */
+public record CvNodeChangedEvent(
+        String cvId,
+        Change change,
+        String nodeId,
+        CvNodeDto node
+) {
+
+    public enum Change {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /** Re-parented; the positions of all its descendants changed too */
+        MOVED,
+        /** Bulk change of arbitrary nodes, listeners should reload */
+        IMPORTED
+    }
+
+    public static CvNodeChangedEvent created(String cvId, CvNodeDto node) {
+        return new CvNodeChangedEvent(cvId, Change.CREATED, node.id(), node);
+    }
+
+    public static CvNodeChangedEvent updated(String cvId, CvNodeDto node) {
+        return new CvNodeChangedEvent(cvId, Change.UPDATED, node.id(), node);
+    }
+
+    public static CvNodeChangedEvent deleted(String cvId, String id) {
+        return new CvNodeChangedEvent(cvId, Change.DELETED, id, null);
+    }
+
+    public static CvNodeChangedEvent moved(String cvId, CvNodeDto node) {
+        return new CvNodeChangedEvent(cvId, Change.MOVED, node.id(), node);
+    }
+
+    public static CvNodeChangedEvent imported(String cvId) {
+        return new CvNodeChangedEvent(cvId, Change.IMPORTED, null, null);
+    }
+}
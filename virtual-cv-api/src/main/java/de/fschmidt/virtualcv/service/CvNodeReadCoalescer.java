@@ -0,0 +1,110 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.config.ReadRouting;
+import de.fschmidt.virtualcv.dto.CvDataDto;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodeProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs concurrent identical {@link CvNodeService} reads once (see {@link SingleFlight}), so a burst
+ * of requests for the same CV or search makes one database query instead of one per request.
+ * <p>
+ * Sits in front of the service's read-only transactions, so waiting callers do not hold a
+ * connection. Calls that must read from the primary ({@link ReadRouting}) are never merged with
+ * calls that may read from a replica. Whole-graph and by-id reads of CVs that the graph snapshot
+ * serves ({@link CvSnapshotService}) do not reach the database at all.
+ */
+@Service
+public class CvNodeReadCoalescer {
+
+    private record Key(String cvId, Object argument, NodeProjection projection, boolean primary) {
+
+        static Key of(String cvId, Object argument, NodeProjection projection) {
+            return new Key(cvId, argument, projection, ReadRouting.primaryRequired());
+        }
+    }
+
+    private final CvNodeService service;
+    private final CvSearchCache searchCache;
+    private final CvSnapshotService snapshots;
+    private final SearchSessions sessions;
+    private final SingleFlight<Key, CvDataDto> allNodes;
+    private final SingleFlight<Key, Optional<CvNodeDto>> nodes;
+    private final SingleFlight<Key, List<CvNodeDto>> children;
+    private final SingleFlight<Key, List<CvNodeDto>> descendants;
+    private final SingleFlight<Key, List<CvNodeDto>> searches;
+
+    public CvNodeReadCoalescer(CvNodeService service, CvSearchCache searchCache,
+                               CvSnapshotService snapshots, SearchSessions sessions,
+                               @Value("${app.coalescing.graph-timeout:5s}") Duration graphTimeout,
+                               @Value("${app.coalescing.node-timeout:1s}") Duration nodeTimeout,
+                               @Value("${app.coalescing.search-timeout:2s}") Duration searchTimeout) {
+        this.service = service;
+        this.searchCache = searchCache;
+        this.snapshots = snapshots;
+        this.sessions = sessions;
+        this.allNodes = new SingleFlight<>(graphTimeout);
+        this.nodes = new SingleFlight<>(nodeTimeout);
+        this.children = new SingleFlight<>(nodeTimeout);
+        this.descendants = new SingleFlight<>(graphTimeout);
+        this.searches = new SingleFlight<>(searchTimeout);
+    }
+
+    public CvDataDto getAllNodes(String cvId, NodeProjection projection) {
+        Optional<List<CvNodeDto>> snapshot = snapshots.getAllNodes(cvId, projection);
+        if (snapshot.isPresent()) {
+            return new CvDataDto(snapshot.get());
+        }
+        return allNodes.execute(Key.of(cvId, null, projection), () -> service.getAllNodes(cvId, projection));
+    }
+
+    public Optional<CvNodeDto> getNode(String cvId, String id, NodeProjection projection) {
+        Optional<CvNodeDto> snapshot = snapshots.getNode(cvId, id, projection);
+        if (snapshot.isPresent()) {
+            return snapshot;
+        }
+        return nodes.execute(Key.of(cvId, id, projection), () -> service.getNode(cvId, id, projection));
+    }
+
+    public List<CvNodeDto> getChildren(String cvId, String parentId, NodeProjection projection) {
+        return children.execute(Key.of(cvId, parentId, projection),
+                () -> service.getChildren(cvId, parentId, projection));
+    }
+
+    public List<CvNodeDto> getDescendants(String cvId, String id, NodeProjection projection) {
+        return descendants.execute(Key.of(cvId, id, projection),
+                () -> service.getDescendants(cvId, id, projection));
+    }
+
+    /**
+     * Served from {@link CvSearchCache}; only misses are coalesced. Always reads full nodes (cached
+     * once for every projection).
+     *
+     * @param session Search session of the client (see {@link SearchSessions}), or null
+     * @throws SearchCancelledException if a newer search of the session cancelled this one
+     */
+    public List<CvNodeDto> search(String cvId, String query, int limit, int offset, String session) {
+        String normalized = CvSearchCache.normalize(query);
+        SearchSessions.Search search = sessions.start(session);
+        try {
+            return searchCache.get(cvId, normalized, limit, offset,
+                    () -> searches.execute(Key.of(cvId, List.of(normalized, limit, offset), NodeProjection.FULL),
+                            () -> service.search(cvId, normalized, limit, offset, search)));
+        } catch (SearchCancelledException e) {
+            if (search.isCancelled()) {
+                throw e;
+            }
+            // The search this one waited for belonged to another session and was cancelled there
+            return searchCache.get(cvId, normalized, limit, offset,
+                    () -> service.search(cvId, normalized, limit, offset, search));
+        } finally {
+            sessions.finish(session, search);
+        }
+    }
+}
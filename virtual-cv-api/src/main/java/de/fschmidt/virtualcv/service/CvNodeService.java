@@ -1,15 +1,34 @@
 package de.fschmidt.virtualcv.service;
 
 import de.fschmidt.virtualcv.command.*;
+import de.fschmidt.virtualcv.domain.CategoryAttributes;
 import de.fschmidt.virtualcv.domain.CvNode;
 import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.domain.NodeAttributesCodec;
+import de.fschmidt.virtualcv.domain.ProfileAttributes;
+import de.fschmidt.virtualcv.domain.SkillAttributes;
+import de.fschmidt.virtualcv.domain.SkillGroupAttributes;
+import de.fschmidt.virtualcv.dto.BoundingBox;
 import de.fschmidt.virtualcv.dto.CvDataDto;
 import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodeProjection;
 import de.fschmidt.virtualcv.repository.CvNodeRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.postgresql.PGConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,39 +37,125 @@ import java.util.Optional;
 @Transactional
 public class CvNodeService {
 
+    private static final String PRIMARY_KEY = "cv_node_pkey";
+
     private final CvNodeRepository repository;
+    private final ApplicationEventPublisher events;
+    private final EntityManager entityManager;
+    private final Cache entityCache;
+    private final DataSource dataSource;
 
-    public CvNodeService(CvNodeRepository repository) {
+    public CvNodeService(CvNodeRepository repository, ApplicationEventPublisher events, EntityManager entityManager,
+                         EntityManagerFactory entityManagerFactory, DataSource dataSource) {
         this.repository = repository;
+        this.events = events;
+        this.entityManager = entityManager;
+        this.entityCache = entityManagerFactory.getCache();
+        this.dataSource = dataSource;
     }
 
     // Queries
 
+    // Each projection has its own query, so a summary never reads description or attributes
+
     @Transactional(readOnly = true)
-    public CvDataDto getAllNodes() {
-        List<CvNodeDto> nodes = repository.findAllAsDto();
+    public CvDataDto getAllNodes(String cvId, NodeProjection projection) {
+        List<CvNodeDto> nodes = switch (projection) {
+            case SUMMARY -> repository.findAllAsSummaryDto(cvId);
+            case FULL -> repository.findAllAsDto(cvId);
+        };
         return new CvDataDto(nodes);
     }
 
     @Transactional(readOnly = true)
-    public Optional<CvNodeDto> getNode(String id) {
-        return repository.findByIdAsDto(id);
+    public Optional<CvNodeDto> getNode(String cvId, String id, NodeProjection projection) {
+        return switch (projection) {
+            case SUMMARY -> repository.findByIdAsSummaryDto(cvId, id);
+            case FULL -> repository.findByIdAsDto(cvId, id);
+        };
+    }
+
+    @Transactional(readOnly = true)
+    public List<CvNodeDto> getChildren(String cvId, String parentId, NodeProjection projection) {
+        return switch (projection) {
+            case SUMMARY -> repository.findByParentIdAsSummaryDto(cvId, parentId);
+            case FULL -> repository.findByParentIdAsDto(cvId, parentId);
+        };
     }
 
     @Transactional(readOnly = true)
-    public List<CvNodeDto> getChildren(String parentId) {
-        return repository.findByParentIdAsDto(parentId);
+    public List<CvNodeDto> getDescendants(String cvId, String id, NodeProjection projection) {
+        return switch (projection) {
+            case SUMMARY -> repository.findDescendantsAsSummaryDto(cvId, id);
+            case FULL -> repository.findDescendantsAsDto(cvId, id);
+        };
     }
 
+    /**
+     * Nodes with a stored position inside the box; nodes without one are never returned.
+     */
     @Transactional(readOnly = true)
-    public List<CvNodeDto> search(String query) {
-        return repository.search(query);
+    public List<CvNodeDto> getNodesInBox(String cvId, BoundingBox box, NodeProjection projection) {
+        return switch (projection) {
+            case SUMMARY -> repository.findInBoxAsSummaryDto(cvId, box.minX(), box.minY(), box.maxX(), box.maxY());
+            case FULL -> repository.findInBoxAsDto(cvId, box.minX(), box.minY(), box.maxX(), box.maxY());
+        };
+    }
+
+    /**
+     * Search that cannot be cancelled, see {@link #search(String, String, int, int, SearchSessions.Search)}.
+     */
+    @Transactional(readOnly = true)
+    public List<CvNodeDto> search(String cvId, String query, int limit, int offset) {
+        return repository.search(cvId, query, limit, offset);
+    }
+
+    /**
+     * Nodes whose label or description contains the query, in creation order. The statement is
+     * bounded by {@link CvNodeRepository#SEARCH_TIMEOUT_SECONDS} and, while it runs, can be
+     * cancelled through {@code search}.
+     *
+     * @throws SearchCancelledException if the search was cancelled
+     */
+    @Transactional(readOnly = true)
+    public List<CvNodeDto> search(String cvId, String query, int limit, int offset, SearchSessions.Search search) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            search.attach(connection.unwrap(PGConnection.class));
+            return repository.search(cvId, query, limit, offset);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Search failed", e);
+        } catch (QueryTimeoutException e) {
+            // A cancelled statement fails like one that ran out of time
+            if (search.isCancelled()) {
+                throw new SearchCancelledException("Search was superseded by a newer one");
+            }
+            throw e;
+        } finally {
+            search.detach();
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Loads the nodes of the CV into the second-level cache, so the first commands on them do not
+     * have to.
+     *
+     * @return the number of nodes loaded
+     */
+    @Transactional(readOnly = true)
+    public int preloadEntities(String cvId) {
+        List<CvNode.Key> keys = repository.findAllAsRefDto(cvId).stream()
+                .map(node -> new CvNode.Key(cvId, node.id()))
+                .toList();
+        return repository.findAllById(keys).size();
     }
 
     // Commands
 
-    public CvNodeDto create(CreateNodeCommand command) {
+    public CvNodeDto create(String cvId, CreateNodeCommand command) {
         CvNode node = new CvNode();
+        node.setCvId(cvId);
         node.setId(command.id());
         node.setLabel(command.label());
         node.setDescription(command.description());
@@ -58,57 +163,43 @@ public class CvNodeService {
         node.setPositionY(command.positionY());
 
         if (command.parentId() != null) {
-            repository.findById(command.parentId())
-                    .ifPresent(node::setParent);
+            findNode(cvId, command.parentId()).ifPresent(parent -> node.setParentId(parent.getId()));
         }
 
         // Set type and type-specific attributes
-        Map<String, Object> attributes = new HashMap<>();
-
         switch (command) {
             case CreateProfileCommand c -> {
                 node.setType(NodeType.PROFILE);
-                putIfNotNull(attributes, "name", c.name());
-                putIfNotNull(attributes, "title", c.title());
-                putIfNotNull(attributes, "subtitle", c.subtitle());
-                putIfNotNull(attributes, "experience", c.experience());
-                putIfNotNull(attributes, "email", c.email());
-                putIfNotNull(attributes, "location", c.location());
-                putIfNotNull(attributes, "photoUrl", c.photoUrl());
+                node.setAttributes(new ProfileAttributes(c.name(), c.title(), c.subtitle(), c.experience(),
+                        c.email(), c.location(), c.photoUrl(), Map.of()));
             }
             case CreateCategoryCommand c -> {
                 node.setType(NodeType.CATEGORY);
-                putIfNotNull(attributes, "sectionId", c.sectionId());
+                node.setAttributes(new CategoryAttributes(c.sectionId(), Map.of()));
             }
             case CreateItemCommand c -> {
                 node.setType(NodeType.ITEM);
-                putIfNotNull(attributes, "company", c.company());
-                putIfNotNull(attributes, "dateRange", c.dateRange());
-                putIfNotNull(attributes, "location", c.location());
-                putIfNotNull(attributes, "highlights", c.highlights());
-                putIfNotNull(attributes, "technologies", c.technologies());
+                node.setAttributes(new ItemAttributes(c.company(), c.dateRange(), c.location(),
+                        c.highlights(), c.technologies(), Map.of()));
             }
             case CreateSkillGroupCommand c -> {
                 node.setType(NodeType.SKILL_GROUP);
-                putIfNotNull(attributes, "proficiencyLevel", c.proficiencyLevel());
+                node.setAttributes(new SkillGroupAttributes(c.proficiencyLevel(), Map.of()));
             }
             case CreateSkillCommand c -> {
                 node.setType(NodeType.SKILL);
-                putIfNotNull(attributes, "proficiencyLevel", c.proficiencyLevel());
-                putIfNotNull(attributes, "yearsOfExperience", c.yearsOfExperience());
+                node.setAttributes(new SkillAttributes(c.proficiencyLevel(), c.yearsOfExperience(), Map.of()));
             }
         }
 
-        if (!attributes.isEmpty()) {
-            node.setAttributes(attributes);
-        }
-
-        CvNode saved = repository.save(node);
-        return toDto(saved);
+        // Flush before publishing, so a failing insert fails this command (see CvWritePipeline)
+        CvNodeDto created = toDto(insert(node));
+        events.publishEvent(CvNodeChangedEvent.created(cvId, created));
+        return created;
     }
 
-    public Optional<CvNodeDto> update(UpdateNodeCommand command) {
-        return repository.findById(command.id())
+    public Optional<CvNodeDto> update(String cvId, UpdateNodeCommand command) {
+        return findNode(cvId, command.id())
                 .map(node -> {
                     if (command.label() != null) {
                         node.setLabel(command.label());
@@ -118,11 +209,8 @@ public class CvNodeService {
                     }
                     if (command.attributes() != null) {
                         // Merge new attributes with existing (don't replace)
-                        Map<String, Object> merged = new HashMap<>(
-                            node.getAttributes() != null ? node.getAttributes() : Map.of()
-                        );
-                        merged.putAll(command.attributes());
-                        node.setAttributes(merged);
+                        node.setAttributes(NodeAttributesCodec.merge(
+                                node.getType(), node.getAttributes(), command.attributes()));
                     }
                     if (command.positionX() != null) {
                         node.setPositionX(command.positionX());
@@ -131,45 +219,101 @@ public class CvNodeService {
                         node.setPositionY(command.positionY());
                     }
                     if (command.parentId() != null) {
-                        repository.findById(command.parentId())
-                                .ifPresent(node::setParent);
+                        findNode(cvId, command.parentId())
+                                .ifPresent(parent -> move(cvId, node, parent));
                     }
-                    return toDto(repository.save(node));
+                    CvNodeDto updated = toDto(repository.saveAndFlush(node));
+                    events.publishEvent(CvNodeChangedEvent.updated(cvId, updated));
+                    return updated;
                 });
     }
 
     /**
-     * Hard delete a node and all its descendants.
-     * @param id The node ID to delete
-     * @return true if node was found and deleted, false if not found
+     * Re-parent a node and shift it and all its descendants by (dx, dy), so a branch keeps its
+     * shape at its new place. One statement over the path index, however large the subtree is.
+     *
+     * @return the moved node, empty if it does not exist
+     * @throws InvalidMoveException if the parent does not exist or lies in the subtree
      */
-    public boolean delete(String id) {
-        return repository.findById(id)
-                .map(node -> {
-                    deleteRecursively(node);
-                    return true;
-                })
-                .orElse(false);
+    public Optional<CvNodeDto> move(String cvId, String id, MoveNodeCommand command) {
+        if (findNode(cvId, id).isEmpty()) {
+            return Optional.empty();
+        }
+        if (findNode(cvId, command.parentId()).isEmpty()) {
+            throw new InvalidMoveException("Parent " + command.parentId() + " does not exist");
+        }
+        checkMove(cvId, id, command.parentId());
+        repository.moveSubtree(cvId, id, command.parentId(), command.dx(), command.dy());
+        CvNodeDto moved = repository.findByIdAsDto(cvId, id).orElseThrow();
+        events.publishEvent(CvNodeChangedEvent.moved(cvId, moved));
+        return Optional.of(moved);
+    }
+
+    /**
+     * Ids are assigned by the client. A taken id is not looked up first: it is either known to the
+     * second-level cache or fails the INSERT on the primary key. Persisted rather than saved, as
+     * save() would merge (load) an entity with an assigned id.
+     */
+    private CvNode insert(CvNode node) {
+        if (entityCache.contains(CvNode.class, new CvNode.Key(node.getCvId(), node.getId()))) {
+            throw new NodeExistsException(node.getId());
+        }
+        try {
+            entityManager.persist(node);
+            // Through the repository, so a violation is translated like on save
+            repository.flush();
+            return node;
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && PRIMARY_KEY.equals(violation.getConstraintName())) {
+                throw new NodeExistsException(node.getId());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Primary-key load, usually served by the second-level cache.
+     */
+    private Optional<CvNode> findNode(String cvId, String id) {
+        return repository.findById(new CvNode.Key(cvId, id));
+    }
+
+    /**
+     * Re-parent a node. The database rewrites the paths of the whole subtree when the update is flushed.
+     */
+    private void move(String cvId, CvNode node, CvNode parent) {
+        checkMove(cvId, node.getId(), parent.getId());
+        node.setParentId(parent.getId());
+    }
+
+    private void checkMove(String cvId, String id, String parentId) {
+        if (repository.isInSubtree(cvId, id, parentId)) {
+            throw new InvalidMoveException(
+                    "Node " + id + " cannot be moved below itself or its descendant " + parentId);
+        }
     }
 
     /**
-     * Recursively delete a node and all its children.
+     * Hard delete a node and all its descendants.
+     * @param cvId The CV the node belongs to
+     * @param id The node ID to delete
+     * @return true if node was found and deleted, false if not found
      */
-    private void deleteRecursively(CvNode node) {
-        // First, delete all children recursively
-        List<CvNode> children = repository.findByParentId(node.getId());
-        for (CvNode child : children) {
-            deleteRecursively(child);
+    public boolean delete(String cvId, String id) {
+        // One statement over the path index, however deep the subtree is
+        if (repository.deleteSubtree(cvId, id) == 0) {
+            return false;
         }
-        // Then delete the node itself
-        repository.delete(node);
+        events.publishEvent(CvNodeChangedEvent.deleted(cvId, id));
+        return true;
     }
 
     private CvNodeDto toDto(CvNode node) {
         return new CvNodeDto(
                 node.getId(),
                 node.getType(),
-                node.getParent() != null ? node.getParent().getId() : null,
+                node.getParentId(),
                 node.getLabel(),
                 node.getDescription(),
                 node.getAttributes(),
@@ -177,10 +321,4 @@ public class CvNodeService {
                 node.getPositionY()
         );
     }
-
-    private void putIfNotNull(Map<String, Object> map, String key, Object value) {
-        if (value != null) {
-            map.put(key, value);
-        }
-    }
 }
@@ -0,0 +1,97 @@
+package de.fschmidt.virtualcv.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.fschmidt.virtualcv.config.ReadRouting;
+import de.fschmidt.virtualcv.domain.NodeAttributesCodec;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Search results per CV, graph version, normalized query and page, in a Caffeine cache bounded by
+ * entry count and estimated bytes. Its W-TinyLFU admission keeps the handful of popular queries
+ * cached when one-off queries come in.
+ * <p>
+ * Entries are keyed by the {@link CvGraphVersion} they were loaded at; after a command the old
+ * entries are never hit again and age out. Misses read from a replica like any other read, except
+ * within {@code app.datasource.replica-max-lag} of a command on the CV, when a replica may not
+ * have applied it yet and the result would be cached under a version it does not reflect. Exposes
+ * the standard {@code cache.*} meters ({@code cache=cv-search}).
+ */
+@Component
+public class CvSearchCache {
+
+    private record Key(String cvId, long version, String query, int limit, int offset) {
+    }
+
+    private final CvGraphVersion graphVersion;
+    private final Duration replicaMaxLag;
+    private final Cache<Key, List<CvNodeDto>> cache;
+
+    public CvSearchCache(CvGraphVersion graphVersion, MeterRegistry meterRegistry,
+                         @Value("${app.search-cache.max-entries:1000}") int maxEntries,
+                         @Value("${app.search-cache.max-size:8MB}") DataSize maxSize,
+                         @Value("${app.datasource.replica-max-lag:5s}") Duration replicaMaxLag) {
+        this.graphVersion = graphVersion;
+        this.replicaMaxLag = replicaMaxLag;
+        // Caffeine bounds either count or weight: every entry weighs at least its share of the
+        // size, so the weight bound also caps the count at maxEntries
+        long minWeight = maxSize.toBytes() / maxEntries;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, List<CvNodeDto> results) ->
+                        (int) Math.min(Integer.MAX_VALUE, Math.max(minWeight, estimateBytes(results))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cv-search");
+    }
+
+    /**
+     * Search is case-insensitive, so queries differing only in case share an entry.
+     */
+    public static String normalize(String query) {
+        return query.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param query  Normalized query (see {@link #normalize})
+     * @param loader Runs the search for this page on a miss
+     */
+    public List<CvNodeDto> get(String cvId, String query, int limit, int offset,
+                               Supplier<List<CvNodeDto>> loader) {
+        Key key = new Key(cvId, graphVersion.current(cvId), query, limit, offset);
+        List<CvNodeDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<CvNodeDto> results = List.copyOf(graphVersion.changedWithin(cvId, replicaMaxLag)
+                ? ReadRouting.onPrimary(loader)
+                : loader.get());
+        cache.put(key, results);
+        return results;
+    }
+
+    // Rough retained size: UTF-16 strings plus fixed per-object overhead
+    private static long estimateBytes(List<CvNodeDto> results) {
+        long bytes = 64;
+        for (CvNodeDto node : results) {
+            bytes += 96 + chars(node.id()) + chars(node.parentId()) + chars(node.label()) + chars(node.description());
+            String attributes = NodeAttributesCodec.toJson(node.attributes());
+            bytes += chars(attributes);
+        }
+        return bytes;
+    }
+
+    private static long chars(String value) {
+        return value != null ? 40 + 2L * value.length() : 0;
+    }
+}
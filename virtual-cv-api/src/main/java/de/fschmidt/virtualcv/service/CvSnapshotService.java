@@ -0,0 +1,246 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.config.ReadRouting;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.CvNodeRefDto;
+import de.fschmidt.virtualcv.dto.NodeProjection;
+import de.fschmidt.virtualcv.repository.CvNodeRepository;
+import de.fschmidt.virtualcv.repository.CvNodeRepository.CvNodeCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the nodes of all CVs in a local, memory-mapped {@link CvGraphSnapshot} file, so a restart
+ * does not load them from the database again ({@code app.snapshot.*}, disabled without a path).
+ * <p>
+ * On startup the file is mapped and checked against the database with one aggregate query: a CV
+ * is stale if its node count differs or a node was updated after the snapshot's watermark (minus
+ * {@code catch-up-margin}, for clock skew and transactions that were still open). Whole-graph and
+ * by-id reads of all other CVs, and the loads of the in-memory indexes, are served from the
+ * mapping. A CV is only served while its {@link CvGraphVersion} is the one its snapshot was
+ * taken at, so its first committed change sends it back to the database.
+ * <p>
+ * Stale CVs are caught up right after startup by writing a new file, then the file is rewritten
+ * every {@code interval} and on shutdown if anything changed. CVs that are still current are copied
+ * from the old file byte for byte, only the others are queried. A missing, corrupt or outdated
+ * file is ignored and replaced by the first write.
+ * <p>
+ * Like the other in-memory state this assumes that all writes go through this instance.
+ */
+@Service
+public class CvSnapshotService implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CvSnapshotService.class);
+
+    /**
+     * The mapped file and, for each CV it serves, the graph version its nodes are from.
+     */
+    private record Current(CvGraphSnapshot snapshot, Map<String, Long> versions) {
+    }
+
+    private final CvNodeRepository repository;
+    private final CvGraphVersion graphVersion;
+    private final Path file;
+    private final Duration interval;
+    private final Duration catchUpMargin;
+    private final boolean enabled;
+    private volatile Current current;
+    private volatile boolean changed;
+    private ScheduledExecutorService writer;
+
+    public CvSnapshotService(CvNodeRepository repository, CvGraphVersion graphVersion,
+                             @Value("${app.snapshot.path:}") String path,
+                             @Value("${app.snapshot.interval:10m}") Duration interval,
+                             @Value("${app.snapshot.catch-up-margin:1m}") Duration catchUpMargin,
+                             @Value("${app.run-mode:api}") String runMode) {
+        this.repository = repository;
+        this.graphVersion = graphVersion;
+        this.file = path.isBlank() ? null : Path.of(path);
+        this.interval = interval;
+        this.catchUpMargin = catchUpMargin;
+        this.enabled = file != null && "api".equals(runMode);
+    }
+
+    /**
+     * @return all nodes of the CV in creation order, empty if the snapshot does not serve the CV
+     */
+    public Optional<List<CvNodeDto>> getAllNodes(String cvId, NodeProjection projection) {
+        Current snapshot = current;
+        if (!serves(snapshot, cvId)) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.snapshot().nodes(cvId, projection));
+    }
+
+    /**
+     * @return the node, empty if the snapshot does not serve the CV or does not contain the node
+     */
+    public Optional<CvNodeDto> getNode(String cvId, String id, NodeProjection projection) {
+        Current snapshot = current;
+        if (!serves(snapshot, cvId)) {
+            return Optional.empty();
+        }
+        return snapshot.snapshot().node(cvId, id, projection);
+    }
+
+    /**
+     * All nodes of the CV for state that is cached under its graph version or patched by events:
+     * from the snapshot if it serves the CV, otherwise from the primary, never from a replica.
+     */
+    public List<CvNodeDto> loadAllNodes(String cvId) {
+        return getAllNodes(cvId, NodeProjection.FULL)
+                .orElseGet(() -> ReadRouting.onPrimary(() -> repository.findAllAsDto(cvId)));
+    }
+
+    /**
+     * Like {@link #loadAllNodes}, node structure only.
+     */
+    public List<CvNodeRefDto> loadAllRefs(String cvId) {
+        return getAllNodes(cvId, NodeProjection.SUMMARY)
+                .map(nodes -> nodes.stream()
+                        .map(node -> new CvNodeRefDto(node.id(), node.type(), node.parentId(), node.label()))
+                        .toList())
+                .orElseGet(() -> ReadRouting.onPrimary(() -> repository.findAllAsRefDto(cvId)));
+    }
+
+    /**
+     * Whether the CV has nodes. Checked before in-memory state is set up for a requested CV id,
+     * so ids of CVs that do not exist allocate nothing and never cause a load from the primary.
+     */
+    public boolean exists(String cvId) {
+        return serves(current, cvId) || repository.existsByCvId(cvId);
+    }
+
+    private boolean serves(Current snapshot, String cvId) {
+        if (snapshot == null) {
+            return false;
+        }
+        Long version = snapshot.versions().get(cvId);
+        return version != null && version == graphVersion.current(cvId);
+    }
+
+    @TransactionalEventListener
+    public void onNodeChanged(CvNodeChangedEvent event) {
+        changed = true;
+    }
+
+    /**
+     * Maps the file before the web server starts, so no request reaches the database for a CV
+     * the snapshot serves.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Optional<CvGraphSnapshot> opened = open();
+        opened.ifPresent(snapshot -> {
+            current = new Current(snapshot, catchUp(snapshot));
+            log.info("Mapped graph snapshot {} ({} CVs, {} nodes, {} current) in {} ms", file,
+                    snapshot.cvIds().size(), snapshot.nodeCount(), current.versions().size(),
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        });
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "graph-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (opened.isEmpty() || changed) {
+            writer.execute(this::writeIfChanged);
+        }
+        writer.scheduleWithFixedDelay(this::writeIfChanged, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private Optional<CvGraphSnapshot> open() {
+        try {
+            return Optional.of(CvGraphSnapshot.open(file));
+        } catch (NoSuchFileException e) {
+            log.info("No graph snapshot at {} yet", file);
+        } catch (IOException e) {
+            log.warn("Ignoring graph snapshot {}: {}", file, e.getMessage());
+        }
+        changed = true;
+        return Optional.empty();
+    }
+
+    // Versions of the CVs the database agrees with; marks the snapshot as changed if any other CV exists
+    private Map<String, Long> catchUp(CvGraphSnapshot snapshot) {
+        Instant staleAfter = snapshot.watermark().minus(catchUpMargin);
+        Map<String, Long> versions = new HashMap<>();
+        List<CvNodeCount> counts = ReadRouting.onPrimary(repository::countNodesByCv);
+        for (CvNodeCount count : counts) {
+            if (count.nodeCount() == snapshot.nodeCount(count.cvId()) && !count.lastUpdate().isAfter(staleAfter)) {
+                versions.put(count.cvId(), graphVersion.current(count.cvId()));
+            }
+        }
+        // Stale CVs, and CVs deleted from the table since, are dropped by the next write
+        if (versions.size() != counts.size() || versions.size() != snapshot.cvIds().size()) {
+            changed = true;
+        }
+        return versions;
+    }
+
+    private synchronized void writeIfChanged() {
+        if (!changed) {
+            return;
+        }
+        changed = false;
+        long start = System.nanoTime();
+        Current previous = current;
+        Instant watermark = Instant.now();
+        Map<String, Long> versions = new HashMap<>();
+        int copied = 0;
+        try (CvGraphSnapshot.Writer out = new CvGraphSnapshot.Writer(file)) {
+            for (CvNodeCount count : ReadRouting.onPrimary(repository::countNodesByCv)) {
+                String cvId = count.cvId();
+                // Read the version before the nodes: a change committed in between makes the CV stale
+                long version = graphVersion.current(cvId);
+                if (serves(previous, cvId)) {
+                    out.copy(previous.snapshot(), cvId);
+                    copied++;
+                } else {
+                    out.add(cvId, ReadRouting.onPrimary(() -> repository.findAllAsDto(cvId)));
+                }
+                versions.put(cvId, version);
+            }
+            out.finish(watermark);
+            current = new Current(CvGraphSnapshot.open(file), versions);
+            log.info("Wrote graph snapshot {} ({} CVs, {} copied) in {} ms", file, versions.size(), copied,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (IOException | RuntimeException e) {
+            changed = true;
+            log.warn("Could not write graph snapshot {}", file, e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        writer.awaitTermination(30, TimeUnit.SECONDS);
+        // Leaves a current file behind for the next start
+        writeIfChanged();
+    }
+}
@@ -0,0 +1,92 @@
+package de.fschmidt.virtualcv.service;
+
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * In-memory state per CV that is loaded once and then kept current from {@link CvNodeChangedEvent}s,
+ * so commands never cause a reload. Used by the graph index, suggest and viewport services.
+ * <p>
+ * The state is loaded on the first read. Since events patch it from then on, the loader must start
+ * from the primary's state ({@link CvSnapshotService#loadAllNodes}, never a replica). Events that
+ * arrive before the first read are ignored, as the load already sees them. An import, or a change
+ * the patch cannot apply, drops the state and the next read loads it again.
+ * <p>
+ * Only the most recently used CVs are kept, and only CVs that exist ({@link CvSnapshotService#exists}),
+ * so an arbitrary CV id neither allocates an entry nor causes a load.
+ *
+ * @param <S> State of one CV, only accessed under the lock of its entry
+ */
+final class CvStateCache<S> {
+
+    private final CvSnapshotService snapshots;
+    private final Function<String, S> load;
+    private final BiPredicate<S, CvNodeChangedEvent> patch;
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param load  Loads the state of a CV
+     * @param patch Applies a committed CREATED, UPDATED, DELETED or MOVED change to loaded state,
+     *              returns false if it cannot and the state has to be reloaded
+     */
+    CvStateCache(CvSnapshotService snapshots, int maxCvs, Function<String, S> load,
+                 BiPredicate<S, CvNodeChangedEvent> patch) {
+        this.snapshots = snapshots;
+        this.load = load;
+        this.patch = patch;
+        this.entries = Caches.lru(maxCvs);
+    }
+
+    /**
+     * Runs {@code reader} on the CV's state under the lock of its entry, loading the state first
+     * if needed.
+     *
+     * @return {@code absent} if the CV does not exist
+     */
+    <R> R read(String cvId, Function<S, R> reader, R absent) {
+        Entry entry = entries.get(cvId);
+        if (entry == null) {
+            if (!snapshots.exists(cvId)) {
+                return absent;
+            }
+            entry = entries.computeIfAbsent(cvId, Entry::new);
+        }
+        return entry.read(reader);
+    }
+
+    void apply(CvNodeChangedEvent event) {
+        Entry entry = entries.get(event.cvId());
+        if (entry != null) {
+            entry.apply(event);
+        }
+    }
+
+    private final class Entry {
+
+        private final String cvId;
+        // Guarded by this
+        private S state;
+
+        Entry(String cvId) {
+            this.cvId = cvId;
+        }
+
+        synchronized <R> R read(Function<S, R> reader) {
+            if (state == null) {
+                state = load.apply(cvId);
+            }
+            return reader.apply(state);
+        }
+
+        synchronized void apply(CvNodeChangedEvent event) {
+            if (state == null) {
+                // Not loaded yet, the first read will see the committed state
+                return;
+            }
+            if (event.change() == CvNodeChangedEvent.Change.IMPORTED || !patch.test(state, event)) {
+                state = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.SuggestionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typeahead completions over node labels, companies and technologies, from a {@link SuggestTrie}
+ * per CV.
+ * <p>
+ * Like {@link CvGraphIndexService}, a CV is held in a {@link CvStateCache}: loaded from the
+ * database once, then a command only re-weights the terms of the nodes it touched
+ * ({@code app.cache.max-cvs} CVs at most).
+ */
+@Service
+public class CvSuggestService {
+
+    private final CvStateCache<CvSuggestions> suggestions;
+
+    public CvSuggestService(CvSnapshotService snapshots, @Value("${app.cache.max-cvs:256}") int maxCvs) {
+        this.suggestions = new CvStateCache<>(snapshots, maxCvs,
+                cvId -> new CvSuggestions(snapshots.loadAllNodes(cvId)), CvSuggestions::apply);
+    }
+
+    /**
+     * @param limit At most {@value SuggestTrie#MAX_SUGGESTIONS}
+     */
+    public List<SuggestionDto> suggest(String cvId, String prefix, int limit) {
+        return suggestions.read(cvId, cv -> cv.complete(prefix, limit), List.of());
+    }
+
+    @TransactionalEventListener
+    public void onNodeChanged(CvNodeChangedEvent event) {
+        suggestions.apply(event);
+    }
+
+    static List<String> terms(CvNodeDto node) {
+        List<String> terms = new ArrayList<>();
+        terms.add(node.label());
+        if (node.attributes() instanceof ItemAttributes item) {
+            terms.add(item.company());
+            if (item.technologies() != null) {
+                terms.addAll(item.technologies());
+            }
+        }
+        return terms;
+    }
+
+    private record IndexedNode(String parentId, List<String> terms) {
+    }
+
+    private static final class CvSuggestions {
+
+        private final SuggestTrie trie = new SuggestTrie();
+        private final Map<String, IndexedNode> nodes = new HashMap<>();
+
+        CvSuggestions(List<CvNodeDto> loaded) {
+            loaded.forEach(this::put);
+        }
+
+        List<SuggestionDto> complete(String prefix, int limit) {
+            return trie.complete(prefix, limit);
+        }
+
+        boolean apply(CvNodeChangedEvent event) {
+            switch (event.change()) {
+                case CREATED, UPDATED, MOVED -> put(event.node());
+                case DELETED -> removeSubtree(event.nodeId());
+            }
+            return true;
+        }
+
+        private void put(CvNodeDto node) {
+            List<String> terms = terms(node);
+            IndexedNode previous = nodes.put(node.id(), new IndexedNode(node.parentId(), terms));
+            if (previous != null) {
+                previous.terms().forEach(trie::remove);
+            }
+            terms.forEach(trie::add);
+        }
+
+        private void removeSubtree(String rootId) {
+            Map<String, List<String>> children = new HashMap<>();
+            nodes.forEach((id, node) -> {
+                if (node.parentId() != null) {
+                    children.computeIfAbsent(node.parentId(), k -> new ArrayList<>()).add(id);
+                }
+            });
+            Deque<String> pending = new ArrayDeque<>(List.of(rootId));
+            while (!pending.isEmpty()) {
+                String id = pending.pop();
+                IndexedNode removed = nodes.remove(id);
+                if (removed != null) {
+                    removed.terms().forEach(trie::remove);
+                }
+                pending.addAll(children.getOrDefault(id, List.of()));
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.dto.TechnologyStatsDto;
+import de.fschmidt.virtualcv.repository.CvNodeRepository;
+import de.fschmidt.virtualcv.repository.CvNodeRepository.ProficiencyCount;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Technology frequency and skills by proficiency of a CV.
+ * <p>
+ * Served from aggregate tables that database triggers keep current in the transaction of every
+ * node command and import (V7 migration), so a read costs one small index scan instead of a pass
+ * over all attributes. {@link #rebuild} recomputes them from the nodes for repair.
+ */
+@Service
+@Transactional
+public class CvTechnologyStatsService {
+
+    private final CvNodeRepository repository;
+
+    public CvTechnologyStatsService(CvNodeRepository repository) {
+        this.repository = repository;
+    }
+
+    @Transactional(readOnly = true)
+    public TechnologyStatsDto getStats(String cvId) {
+        Map<String, Integer> skillsByProficiency = new LinkedHashMap<>();
+        for (ProficiencyCount count : repository.findProficiencyStats(cvId)) {
+            skillsByProficiency.put(count.proficiency(), count.skillCount());
+        }
+        return new TechnologyStatsDto(repository.findTechnologyStats(cvId), skillsByProficiency);
+    }
+
+    public TechnologyStatsDto rebuild(String cvId) {
+        repository.rebuildStats(cvId);
+        return getStats(cvId);
+    }
+}
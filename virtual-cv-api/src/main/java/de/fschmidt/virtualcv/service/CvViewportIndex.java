@@ -0,0 +1,119 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.dto.BoundingBox;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable uniform-grid snapshot of the positioned nodes of a CV.
+ * <p>
+ * Every node gets the key of its grid cell, {@code (row << 32) + column}, and the nodes are sorted
+ * by key, so the cells of one grid row are a contiguous, sorted range. A box query does one binary
+ * search per covered row and then reads only the cells the box touches. Boxes spanning more rows
+ * than there are nodes fall back to a linear scan. Results keep the input order.
+ */
+public final class CvViewportIndex {
+
+    private final int cellSize;
+    // Input order -> node; nodes without a position are left out of the arrays below
+    private final CvNodeDto[] nodes;
+    // Sorted by cell key
+    private final long[] keys;
+    private final int[] entries;
+
+    public CvViewportIndex(List<CvNodeDto> nodes, int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("cellSize must be positive");
+        }
+        this.cellSize = cellSize;
+        this.nodes = nodes.toArray(CvNodeDto[]::new);
+
+        Integer[] positioned = new Integer[this.nodes.length];
+        int count = 0;
+        for (int i = 0; i < this.nodes.length; i++) {
+            if (this.nodes[i].positionX() != null && this.nodes[i].positionY() != null) {
+                positioned[count++] = i;
+            }
+        }
+        positioned = Arrays.copyOf(positioned, count);
+        Arrays.sort(positioned, Comparator.comparingLong(i -> key(this.nodes[i])));
+
+        keys = new long[count];
+        entries = new int[count];
+        for (int e = 0; e < count; e++) {
+            entries[e] = positioned[e];
+            keys[e] = key(this.nodes[entries[e]]);
+        }
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Nodes whose position lies inside the box (borders included), in input order.
+     */
+    public List<CvNodeDto> within(BoundingBox box) {
+        int fromRow = Math.floorDiv(box.minY(), cellSize);
+        int toRow = Math.floorDiv(box.maxY(), cellSize);
+        int fromColumn = Math.floorDiv(box.minX(), cellSize);
+        int toColumn = Math.floorDiv(box.maxX(), cellSize);
+
+        int[] found = new int[entries.length];
+        int count = 0;
+        if ((long) toRow - fromRow >= entries.length) {
+            for (int entry : entries) {
+                if (contains(box, nodes[entry])) {
+                    found[count++] = entry;
+                }
+            }
+        } else {
+            for (int row = fromRow; row <= toRow; row++) {
+                long last = key(row, toColumn);
+                for (int e = lowerBound(key(row, fromColumn)); e < keys.length && keys[e] <= last; e++) {
+                    if (contains(box, nodes[entries[e]])) {
+                        found[count++] = entries[e];
+                    }
+                }
+            }
+        }
+        Arrays.sort(found, 0, count);
+
+        List<CvNodeDto> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(nodes[found[i]]);
+        }
+        return result;
+    }
+
+    private static boolean contains(BoundingBox box, CvNodeDto node) {
+        return box.contains(node.positionX(), node.positionY());
+    }
+
+    private long key(CvNodeDto node) {
+        return key(Math.floorDiv(node.positionY(), cellSize), Math.floorDiv(node.positionX(), cellSize));
+    }
+
+    // Column shifted to [0, 2^32) so keys sort by row, then column
+    private static long key(int row, int column) {
+        return ((long) row << 32) + ((long) column - Integer.MIN_VALUE);
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,95 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.dto.BoundingBox;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodeProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Viewport reads: the nodes positioned inside a box of the canvas.
+ * <p>
+ * By default every read is a GiST index scan ({@link CvNodeService#getNodesInBox}). With
+ * {@code app.viewport.mirror-max-cvs} > 0, the most recently queried CVs are additionally mirrored
+ * in memory as a {@link CvViewportIndex} grid, held in a {@link CvStateCache} like
+ * {@link CvGraphIndexService}, so panning over a hot CV does not touch the database.
+ */
+@Service
+public class CvViewportService {
+
+    private final CvNodeService service;
+    // Null when mirroring is disabled
+    private final CvStateCache<Mirror> mirrors;
+
+    public CvViewportService(CvNodeService service, CvSnapshotService snapshots,
+                             @Value("${app.viewport.mirror-max-cvs:0}") int mirrorMaxCvs,
+                             @Value("${app.viewport.grid-cell-size:256}") int cellSize) {
+        this.service = service;
+        this.mirrors = mirrorMaxCvs > 0
+                ? new CvStateCache<>(snapshots, mirrorMaxCvs,
+                        cvId -> new Mirror(snapshots.loadAllNodes(cvId), cellSize), Mirror::apply)
+                : null;
+    }
+
+    public List<CvNodeDto> getNodesInBox(String cvId, BoundingBox box, NodeProjection projection) {
+        if (mirrors == null) {
+            return service.getNodesInBox(cvId, box, projection);
+        }
+        CvViewportIndex index = mirrors.read(cvId, Mirror::currentIndex, null);
+        List<CvNodeDto> nodes = index != null ? index.within(box) : List.of();
+        return switch (projection) {
+            case SUMMARY -> nodes.stream().map(CvViewportService::toSummary).toList();
+            case FULL -> nodes;
+        };
+    }
+
+    @TransactionalEventListener
+    public void onNodeChanged(CvNodeChangedEvent event) {
+        if (mirrors != null) {
+            mirrors.apply(event);
+        }
+    }
+
+    /**
+     * Full nodes of one CV. Insertion order = creation order, like the database query.
+     */
+    private static final class Mirror {
+
+        private final Map<String, CvNodeDto> nodes = new LinkedHashMap<>();
+        private final int cellSize;
+        private CvViewportIndex index;
+
+        Mirror(List<CvNodeDto> loaded, int cellSize) {
+            loaded.forEach(node -> nodes.put(node.id(), node));
+            this.cellSize = cellSize;
+        }
+
+        CvViewportIndex currentIndex() {
+            if (index == null) {
+                index = new CvViewportIndex(List.copyOf(nodes.values()), cellSize);
+            }
+            return index;
+        }
+
+        boolean apply(CvNodeChangedEvent event) {
+            switch (event.change()) {
+                case CREATED, UPDATED -> nodes.put(event.nodeId(), event.node());
+                // The event does not list the removed or shifted subtree; both are rare, reload
+                case DELETED, MOVED -> {
+                    return false;
+                }
+            }
+            index = null;
+            return true;
+        }
+    }
+
+    private static CvNodeDto toSummary(CvNodeDto node) {
+        return new CvNodeDto(node.id(), node.type(), node.parentId(), node.label(), node.positionX(), node.positionY());
+    }
+}
@@ -0,0 +1,161 @@
+package de.fschmidt.virtualcv.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fschmidt.virtualcv.command.CreateSkillCommand;
+import de.fschmidt.virtualcv.command.UpdateNodeCommand;
+import de.fschmidt.virtualcv.config.CvGraphProtobufHttpMessageConverter;
+import de.fschmidt.virtualcv.config.ReadRouting;
+import de.fschmidt.virtualcv.dto.BoundingBox;
+import de.fschmidt.virtualcv.dto.CvDataDto;
+import de.fschmidt.virtualcv.dto.NodeProjection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs the hot paths in-process after startup, before the instance takes traffic
+ * ({@code app.warm-up.*}), so the first real requests do not run interpreted code, cold Hibernate
+ * query plans and uncreated Jackson serializers.
+ * <p>
+ * Each iteration reads the warm-up CV the way the read endpoints do (all projections, node
+ * neighbourhoods, search, viewport), serializes the results, and runs a create, update and delete
+ * in a transaction that is rolled back, so nothing is written and no {@link CvNodeChangedEvent} is
+ * delivered. Reads go to {@link CvNodeService} directly, past the coalescer and search cache,
+ * so every iteration reaches the database. The delete is a bulk statement that empties the entity
+ * cache, so the warm-up CV's nodes are loaded into it again at the end.
+ * <p>
+ * Iterations stop at {@code iterations} or {@code max-duration}, whichever comes first. The readiness
+ * probe stays down until then ({@code WarmUpHealthIndicator}). A failing iteration ends the
+ * warm-up early: it only speeds things up, it must not keep the instance out of service.
+ */
+@Service
+public class CvWarmUpRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CvWarmUpRunner.class);
+
+    private static final List<String> QUERIES = List.of("java", "spring", "developer", "kotlin");
+    private static final int SEARCH_LIMIT = 50;
+    private static final BoundingBox VIEWPORT = new BoundingBox(0, 0, 1600, 900);
+    // Writes go to a CV of their own, so a rolled-back row never blocks one of a real CV
+    private static final String WRITE_CV_ID = "warm-up";
+
+    public enum State {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * @param iterations Completed iterations
+     * @param elapsed    Time spent so far
+     */
+    public record Progress(State state, int iterations, Duration elapsed) {
+    }
+
+    private final CvNodeService service;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate rollbackOnly;
+    private final boolean enabled;
+    private final String cvId;
+    private final int iterations;
+    private final Duration maxDuration;
+    private volatile Progress progress;
+
+    public CvWarmUpRunner(CvNodeService service, ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.warm-up.enabled:false}") boolean enabled,
+                          @Value("${app.warm-up.cv:default}") String cvId,
+                          @Value("${app.warm-up.iterations:200}") int iterations,
+                          @Value("${app.warm-up.max-duration:60s}") Duration maxDuration,
+                          @Value("${app.run-mode:api}") String runMode) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        this.rollbackOnly = new TransactionTemplate(transactionManager);
+        // The migrate init container exits right after startup, there is nothing to warm up
+        this.enabled = enabled && "api".equals(runMode);
+        this.cvId = cvId;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+        this.progress = new Progress(this.enabled ? State.PENDING : State.DONE, 0, Duration.ZERO);
+    }
+
+    public Progress progress() {
+        return progress;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        int done = 0;
+        progress = new Progress(State.RUNNING, 0, Duration.ZERO);
+        try {
+            while (done < iterations && System.nanoTime() < deadline) {
+                readAll();
+                writeAndRollBack();
+                done++;
+                progress = new Progress(State.RUNNING, done, Duration.ofNanos(System.nanoTime() - start));
+            }
+            // Every rolled-back delete emptied the entity cache (bulk statement), fill it again
+            ReadRouting.onPrimary(() -> service.preloadEntities(cvId));
+            progress = new Progress(State.DONE, done, Duration.ofNanos(System.nanoTime() - start));
+            log.info("Warm-up finished: {} iterations in {} ms", done, progress.elapsed().toMillis());
+        } catch (RuntimeException | IOException e) {
+            progress = new Progress(State.FAILED, done, Duration.ofNanos(System.nanoTime() - start));
+            log.warn("Warm-up stopped after {} iterations", done, e);
+        }
+    }
+
+    private void readAll() throws IOException {
+        CvDataDto all = service.getAllNodes(cvId, NodeProjection.FULL);
+        serialize(all, NodeProjection.FULL);
+        serialize(service.getAllNodes(cvId, NodeProjection.SUMMARY), NodeProjection.SUMMARY);
+        CvGraphProtobufHttpMessageConverter.write(all.nodes(), OutputStream.nullOutputStream());
+
+        if (!all.nodes().isEmpty()) {
+            String id = all.nodes().getFirst().id();
+            for (NodeProjection projection : NodeProjection.values()) {
+                serialize(service.getNode(cvId, id, projection), projection);
+                serialize(service.getChildren(cvId, id, projection), projection);
+                serialize(service.getDescendants(cvId, id, projection), projection);
+            }
+        }
+        for (String query : QUERIES) {
+            serialize(service.search(cvId, query, SEARCH_LIMIT, 0), NodeProjection.FULL);
+        }
+        serialize(service.getNodesInBox(cvId, VIEWPORT, NodeProjection.SUMMARY), NodeProjection.SUMMARY);
+    }
+
+    private void writeAndRollBack() {
+        String id = WRITE_CV_ID + "-" + UUID.randomUUID();
+        rollbackOnly.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            service.create(WRITE_CV_ID, new CreateSkillCommand(id, null, "Warm-up", null, 0, 0, "expert", 1));
+            service.update(WRITE_CV_ID, new UpdateNodeCommand(id, null, "Warm-up 2", "Description",
+                    Map.of("yearsOfExperience", 2), 10, 10));
+            service.delete(WRITE_CV_ID, id);
+        });
+    }
+
+    private void serialize(Object value, NodeProjection projection) throws IOException {
+        objectMapper.writerWithView(projection.view()).writeValue(OutputStream.nullOutputStream(), value);
+    }
+}
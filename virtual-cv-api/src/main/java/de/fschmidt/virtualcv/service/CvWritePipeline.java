@@ -0,0 +1,208 @@
+package de.fschmidt.virtualcv.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Optional group commit for {@link CvNodeService} commands ({@code app.write-pipeline.enabled}).
+ * <p>
+ * Commands are queued and a single writer thread runs up to {@code max-batch} of them in one
+ * transaction, so a burst of edits shares one commit instead of paying one each. The writer takes
+ * whatever is queued, waiting at most {@code linger} for more. Each caller's future completes only
+ * after the commit, with its own result or error.
+ * <p>
+ * A failing command does not affect the others in its group: the group is rolled back, the failing
+ * command gets its exception and the rest run again as a new group. Savepoints are not an option
+ * because Hibernate marks the whole transaction rollback-only on a failed flush. Commands are
+ * re-run from scratch, which is safe because {@link CvNodeChangedEvent}s are only delivered after
+ * a commit. When disabled, commands run on the caller's thread as before.
+ */
+@Service
+public class CvWritePipeline implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CvWritePipeline.class);
+
+    private record PendingCommand<T>(Supplier<T> command, CompletableFuture<T> future) {
+
+        void complete(Object result) {
+            @SuppressWarnings("unchecked")
+            T value = (T) result;
+            future.complete(value);
+        }
+    }
+
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final long enqueueTimeoutNanos;
+    private final BlockingQueue<PendingCommand<?>> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public CvWritePipeline(PlatformTransactionManager transactionManager,
+                           @Value("${app.write-pipeline.enabled:false}") boolean enabled,
+                           @Value("${app.write-pipeline.max-batch:32}") int maxBatch,
+                           @Value("${app.write-pipeline.linger:2ms}") Duration linger,
+                           @Value("${app.write-pipeline.queue-capacity:256}") int queueCapacity,
+                           @Value("${app.write-pipeline.enqueue-timeout:1s}") Duration enqueueTimeout) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = linger.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (enabled) {
+            writer = new Thread(this::drain, "cv-write-pipeline");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * Queues a command. It must do all its database work through transactional services, which
+     * join the group's transaction.
+     *
+     * @return Completes after the command's changes are committed
+     * @throws WriteQueueFullException if the queue stays full for {@code enqueue-timeout}
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> command) {
+        if (!enabled) {
+            try {
+                return CompletableFuture.completedFuture(command.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        PendingCommand<T> pending = new PendingCommand<>(command, new CompletableFuture<>());
+        try {
+            if (!running || !queue.offer(pending, enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new WriteQueueFullException("Too many pending writes, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteQueueFullException("Interrupted while queueing write");
+        }
+        return pending.future();
+    }
+
+    /**
+     * {@link #submit} and wait: returns the command's result or throws its exception.
+     */
+    public <T> T execute(Supplier<T> command) {
+        try {
+            return submit(command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void drain() {
+        List<PendingCommand<?>> group = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingCommand<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (group.size() < maxBatch) {
+                    if (queue.drainTo(group, maxBatch - group.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    PendingCommand<?> next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                runGroup(group);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException | Error e) {
+                // Keep the writer alive whatever happens, and never leave a caller waiting
+                log.error("Write pipeline failed on a group of {} commands", group.size(), e);
+                group.forEach(pending -> pending.future().completeExceptionally(e));
+            }
+            group.clear();
+        }
+    }
+
+    private void runGroup(List<PendingCommand<?>> group) {
+        List<PendingCommand<?>> remaining = new ArrayList<>(group);
+        while (!remaining.isEmpty()) {
+            List<Object> results = new ArrayList<>(remaining.size());
+            PendingCommand<?>[] failed = new PendingCommand<?>[1];
+            RuntimeException[] failure = new RuntimeException[1];
+            try {
+                transaction.executeWithoutResult(status -> {
+                    for (PendingCommand<?> pending : remaining) {
+                        try {
+                            results.add(pending.command().get());
+                        } catch (RuntimeException e) {
+                            failed[0] = pending;
+                            failure[0] = e;
+                            status.setRollbackOnly();
+                            return;
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                // The commit failed without any command failing: find out command by command
+                log.warn("Group commit of {} commands failed, running them one by one", remaining.size(), e);
+                remaining.forEach(this::runAlone);
+                return;
+            }
+            if (failed[0] == null) {
+                for (int i = 0; i < remaining.size(); i++) {
+                    remaining.get(i).complete(results.get(i));
+                }
+                return;
+            }
+            failed[0].future().completeExceptionally(failure[0]);
+            remaining.remove(failed[0]);
+        }
+    }
+
+    private void runAlone(PendingCommand<?> pending) {
+        try {
+            pending.complete(transaction.execute(status -> pending.command().get()));
+        } catch (RuntimeException e) {
+            pending.future().completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            // Lets the writer finish what is already queued
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodePositionDto;
+import de.fschmidt.virtualcv.dto.NodeState;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Server-side port of the size-aware layout in {@code virtual-cv-ui/src/services/layout.service.ts}.
+ * <p>
+ * The profile sits at the center, categories around it, and every deeper level extends outward in
+ * the category's direction with spacing derived from the node sizes of the given {@link NodeState}.
+ * Nodes with a stored position keep it and anchor their children. Large independent subtrees are
+ * laid out in parallel on the common fork-join pool.
+ */
+@Component
+public class GraphLayoutEngine {
+
+    private static final double CENTER_X = 400;
+    private static final double CENTER_Y = 300;
+    private static final double MIN_GAP = 40;
+    private static final double DEEP_SPACING_FACTOR = 0.7;
+
+    // Subtrees smaller than this are laid out inline, forking them costs more than it saves
+    private static final int FORK_THRESHOLD = 256;
+
+    private static final Map<NodeType, Map<NodeState, Size>> NODE_SIZES = new EnumMap<>(NodeType.class);
+
+    static {
+        NODE_SIZES.put(NodeType.PROFILE, sizes(new Size(360, 420)));
+        NODE_SIZES.put(NodeType.CATEGORY, sizes(new Size(150, 80)));
+        NODE_SIZES.put(NodeType.ITEM, sizes(new Size(420, 300)));
+        NODE_SIZES.put(NodeType.SKILL_GROUP, sizes(new Size(160, 80)));
+        NODE_SIZES.put(NodeType.SKILL, sizes(new Size(200, 120)));
+    }
+
+    private record Size(double width, double height) {}
+
+    private record CategoryConfig(int dirX, double offsetY) {}
+
+    private static final Map<String, CategoryConfig> CATEGORY_CONFIG = Map.of(
+            "work", new CategoryConfig(-1, -100),
+            "skills", new CategoryConfig(1, -150),
+            "education", new CategoryConfig(1, 200),
+            "languages", new CategoryConfig(-1, 200)
+    );
+
+    private static Map<NodeState, Size> sizes(Size detailed) {
+        Map<NodeState, Size> sizes = new EnumMap<>(NodeState.class);
+        sizes.put(NodeState.DORMANT, new Size(10, 10));
+        sizes.put(NodeState.QUICKVIEW, new Size(80, 80));
+        sizes.put(NodeState.DETAILED, detailed);
+        return sizes;
+    }
+
+    /**
+     * @param nodes All nodes, in creation order
+     * @param state State used to size every node, or null for the initial view
+     *              (profile detailed, categories quickview, everything else dormant)
+     */
+    public List<NodePositionDto> compute(List<CvNodeDto> nodes, NodeState state) {
+        Graph graph = new Graph(nodes, state);
+        CvNodeDto profile = nodes.stream()
+                .filter(n -> n.type() == NodeType.PROFILE && n.parentId() == null)
+                .findFirst()
+                .orElse(null);
+        if (profile == null) {
+            return List.of();
+        }
+
+        List<NodePositionDto> positions = new ArrayList<>(nodes.size());
+        double[] center = graph.position(profile, CENTER_X, CENTER_Y);
+        positions.add(new NodePositionDto(profile.id(), center[0], center[1]));
+
+        List<CvNodeDto> categories = graph.children(profile.id());
+        List<SubtreeTask> tasks = new ArrayList<>(categories.size());
+        for (int i = 0; i < categories.size(); i++) {
+            CvNodeDto category = categories.get(i);
+            CategoryConfig cfg = CATEGORY_CONFIG.getOrDefault(category.id(), fallbackConfig(i, categories.size()));
+
+            double distance = graph.horizontalDistance(profile, category);
+            double x = center[0] + cfg.dirX() * distance + jitter(category.id(), 8);
+            double y = center[1] + cfg.offsetY() + jitter(category.id() + "y", 15);
+            double[] pos = graph.position(category, x, y);
+            positions.add(new NodePositionDto(category.id(), pos[0], pos[1]));
+
+            tasks.add(new SubtreeTask(graph, category, pos[0], pos[1], cfg.dirX(), 1));
+        }
+
+        if (graph.size() >= FORK_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    invokeAll(tasks);
+                    return null;
+                }
+            });
+            tasks.forEach(task -> positions.addAll(task.join()));
+        } else {
+            tasks.forEach(task -> positions.addAll(task.compute()));
+        }
+        return positions;
+    }
+
+    // Categories the UI has no fixed slot for alternate sides below the known ones
+    private static CategoryConfig fallbackConfig(int index, int count) {
+        return new CategoryConfig(index % 2 == 0 ? -1 : 1, 350 + (index - count / 2.0) * 60);
+    }
+
+    /**
+     * Lays out the descendants of one node. Children whose own subtree is large are forked.
+     */
+    private static final class SubtreeTask extends RecursiveTask<List<NodePositionDto>> {
+
+        private final Graph graph;
+        private final CvNodeDto parent;
+        private final double parentX;
+        private final double parentY;
+        private final int dirX;
+        private final int level;
+
+        SubtreeTask(Graph graph, CvNodeDto parent, double parentX, double parentY, int dirX, int level) {
+            this.graph = graph;
+            this.parent = parent;
+            this.parentX = parentX;
+            this.parentY = parentY;
+            this.dirX = dirX;
+            this.level = level;
+        }
+
+        @Override
+        protected List<NodePositionDto> compute() {
+            List<CvNodeDto> children = graph.children(parent.id());
+            if (children.isEmpty()) {
+                return List.of();
+            }
+
+            List<NodePositionDto> positions = new ArrayList<>();
+            List<SubtreeTask> forked = new ArrayList<>();
+
+            double spacing = graph.verticalSpacing(children) * (level == 1 ? 1 : DEEP_SPACING_FACTOR);
+            double startY = parentY - (children.size() - 1) * spacing / 2;
+            double jitterX = level == 1 ? 10 : 6;
+            double jitterY = level == 1 ? 8 : 5;
+
+            for (int i = 0; i < children.size(); i++) {
+                CvNodeDto child = children.get(i);
+                double distance = graph.horizontalDistance(parent, child);
+                double x = parentX + dirX * distance + jitter(child.id(), jitterX);
+                double y = startY + i * spacing + jitter(child.id() + "y", jitterY);
+                double[] pos = graph.position(child, x, y);
+                positions.add(new NodePositionDto(child.id(), pos[0], pos[1]));
+
+                SubtreeTask task = new SubtreeTask(graph, child, pos[0], pos[1], dirX, level + 1);
+                if (graph.subtreeSize(child.id()) >= FORK_THRESHOLD && getPool() != null) {
+                    task.fork();
+                    forked.add(task);
+                } else {
+                    positions.addAll(task.compute());
+                }
+            }
+
+            for (SubtreeTask task : forked) {
+                positions.addAll(task.join());
+            }
+            return positions;
+        }
+    }
+
+    /**
+     * Read-only adjacency, states and subtree sizes shared by all tasks of one computation.
+     */
+    private static final class Graph {
+
+        private final Map<String, List<CvNodeDto>> childrenById = new HashMap<>();
+        private final Map<String, NodeState> states = new HashMap<>();
+        private final Map<String, Integer> subtreeSizes = new HashMap<>();
+        private final int size;
+
+        Graph(List<CvNodeDto> nodes, NodeState state) {
+            size = nodes.size();
+            String rootId = null;
+            for (CvNodeDto node : nodes) {
+                childrenById.computeIfAbsent(node.parentId(), k -> new ArrayList<>()).add(node);
+                if (node.type() == NodeType.PROFILE && node.parentId() == null && rootId == null) {
+                    rootId = node.id();
+                }
+            }
+            for (CvNodeDto node : nodes) {
+                states.put(node.id(), state != null ? state : initialState(node, rootId));
+            }
+            for (CvNodeDto root : childrenById.getOrDefault(null, List.of())) {
+                countSubtree(root.id());
+            }
+        }
+
+        private static NodeState initialState(CvNodeDto node, String rootId) {
+            if (node.id().equals(rootId)) {
+                return NodeState.DETAILED;
+            }
+            return rootId != null && rootId.equals(node.parentId()) ? NodeState.QUICKVIEW : NodeState.DORMANT;
+        }
+
+        private int countSubtree(String id) {
+            int count = 1;
+            for (CvNodeDto child : children(id)) {
+                count += countSubtree(child.id());
+            }
+            subtreeSizes.put(id, count);
+            return count;
+        }
+
+        int size() {
+            return size;
+        }
+
+        List<CvNodeDto> children(String id) {
+            return childrenById.getOrDefault(id, List.of());
+        }
+
+        int subtreeSize(String id) {
+            return subtreeSizes.getOrDefault(id, 1);
+        }
+
+        double[] position(CvNodeDto node, double x, double y) {
+            if (node.positionX() != null && node.positionY() != null) {
+                return new double[]{node.positionX(), node.positionY()};
+            }
+            return new double[]{x, y};
+        }
+
+        Size size(CvNodeDto node) {
+            Map<NodeState, Size> typeSizes = NODE_SIZES.get(node.type());
+            return typeSizes != null ? typeSizes.get(states.get(node.id())) : new Size(80, 80);
+        }
+
+        // Center-to-center distance: half of parent width + gap + half of child width
+        double horizontalDistance(CvNodeDto parent, CvNodeDto child) {
+            return size(parent).width() / 2 + MIN_GAP + size(child).width() / 2;
+        }
+
+        double verticalSpacing(List<CvNodeDto> nodes) {
+            double maxHeight = 0;
+            for (CvNodeDto node : nodes) {
+                maxHeight = Math.max(maxHeight, size(node).height());
+            }
+            return maxHeight + MIN_GAP * 0.5;
+        }
+    }
+
+    // Same values as simpleHash/jitter in the UI: (hash << 5) - hash + c is String.hashCode()
+    static double jitter(String nodeId, double scale) {
+        long hash = Math.abs((long) nodeId.hashCode());
+        return ((hash % 100) / 100.0 - 0.5) * scale;
+    }
+}
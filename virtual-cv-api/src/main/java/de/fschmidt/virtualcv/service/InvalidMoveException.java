@@ -0,0 +1,12 @@
+package de.fschmidt.virtualcv.service;
+
+/**
+ * Thrown when a node would be moved below itself or one of its descendants.
+ * Nothing is written when this is thrown.
+ */
+public class InvalidMoveException extends RuntimeException {
+
+    public InvalidMoveException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package de.fschmidt.virtualcv.service;
+
+/**
+ * Thrown when a node is created with an id that is already taken (in any CV).
+ * Nothing is written when this is thrown.
+ */
+public class NodeExistsException extends RuntimeException {
+
+    public NodeExistsException(String id) {
+        super("A node with id " + id + " already exists");
+    }
+}
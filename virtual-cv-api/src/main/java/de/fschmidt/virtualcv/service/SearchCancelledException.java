@@ -0,0 +1,12 @@
+package de.fschmidt.virtualcv.service;
+
+/**
+ * Thrown when a search is cancelled because the same search session started a newer one (see
+ * {@link SearchSessions}).
+ */
+public class SearchCancelledException extends RuntimeException {
+
+    public SearchCancelledException(String message) {
+        super(message);
+    }
+}
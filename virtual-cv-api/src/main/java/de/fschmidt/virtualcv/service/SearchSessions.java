@@ -0,0 +1,99 @@
+package de.fschmidt.virtualcv.service;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cancels a client's running search when the same client starts its next one, as a search box
+ * does on every keystroke, so the abandoned query gives its pool connection back right away
+ * instead of running to its statement timeout.
+ * <p>
+ * Clients opt in with a session id ({@code X-Search-Session}), one per search box; without one a
+ * search is never cancelled. The servlet container only notices that a client went away when the
+ * response is written, which a blocked query never does, so the next search of the same session
+ * is what tells us the previous one is no longer wanted.
+ */
+@Component
+public class SearchSessions {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchSessions.class);
+
+    /**
+     * One search of a session. Its statement can be cancelled while the search holds the
+     * connection it runs on, between {@link #attach} and {@link #detach}.
+     */
+    static final class Search {
+
+        private PGConnection connection;
+        private boolean cancelled;
+
+        /**
+         * @param connection The physical connection, unwrapped on the request thread so a lazy
+         *                   connection proxy is never resolved by the cancelling thread
+         * @throws SearchCancelledException if the search was cancelled before it got a connection
+         */
+        synchronized void attach(PGConnection connection) {
+            if (cancelled) {
+                throw new SearchCancelledException("Search was superseded by a newer one");
+            }
+            this.connection = connection;
+        }
+
+        /**
+         * Must be called before the connection goes back to the pool, so a late cancel cannot hit
+         * the next statement that runs on it.
+         */
+        synchronized void detach() {
+            connection = null;
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (connection == null) {
+                return;
+            }
+            try {
+                connection.cancelQuery();
+            } catch (SQLException e) {
+                // The statement then runs to completion or its timeout
+                log.warn("Could not cancel superseded search", e);
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<String, Search> running = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a search, cancelling the session's previous search if it is still running.
+     *
+     * @param session Session id, or null for a search that cannot be cancelled
+     */
+    Search start(String session) {
+        Search search = new Search();
+        if (session != null) {
+            Search previous = running.put(session, search);
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+        return search;
+    }
+
+    /**
+     * Ends a search started with {@link #start}; a newer search of the session stays registered.
+     */
+    void finish(String session, Search search) {
+        if (session != null) {
+            running.remove(session, search);
+        }
+    }
+}
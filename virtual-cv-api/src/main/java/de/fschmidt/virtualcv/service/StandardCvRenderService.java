@@ -0,0 +1,76 @@
+package de.fschmidt.virtualcv.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Pre-rendered HTML of the standard CV, cached per CV and graph version.
+ * <p>
+ * A cached page is re-rendered in the background after every committed command on its CV, so
+ * requests are normally answered from the cached bytes. A request that still finds an outdated
+ * page renders synchronously rather than serve stale content.
+ */
+@Service
+public class StandardCvRenderService {
+
+    public record RenderedPage(long version, byte[] body, String etag) {}
+
+    private final CvSnapshotService snapshots;
+    private final StandardCvRenderer renderer;
+    private final CvGraphVersion graphVersion;
+    private final Map<String, RenderedPage> pages;
+
+    public StandardCvRenderService(CvSnapshotService snapshots, StandardCvRenderer renderer,
+                                   CvGraphVersion graphVersion, @Value("${app.cache.max-cvs:256}") int maxCvs) {
+        this.snapshots = snapshots;
+        this.renderer = renderer;
+        this.graphVersion = graphVersion;
+        this.pages = Caches.lru(maxCvs);
+    }
+
+    /**
+     * @return empty if the CV does not exist, which renders and caches nothing
+     */
+    public Optional<RenderedPage> getPage(String cvId) {
+        RenderedPage current = pages.get(cvId);
+        if (current != null && current.version() == graphVersion.current(cvId)) {
+            return Optional.of(current);
+        }
+        if (!snapshots.exists(cvId)) {
+            pages.remove(cvId);
+            return Optional.empty();
+        }
+        return Optional.of(render(cvId));
+    }
+
+    @Async
+    @TransactionalEventListener
+    public void onNodeChanged(CvNodeChangedEvent event) {
+        // Only re-render CVs that are actually being served
+        if (pages.containsKey(event.cvId())) {
+            render(event.cvId());
+        }
+    }
+
+    private RenderedPage render(String cvId) {
+        long version = graphVersion.current(cvId);
+        // Cached under the version, so never read from a possibly lagging replica
+        String html = renderer.render(snapshots.loadAllNodes(cvId));
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        RenderedPage rendered = new RenderedPage(version, body,
+                "\"" + version + "-" + HexFormat.of().toHexDigits((int) crc.getValue()) + "\"");
+
+        pages.merge(cvId, rendered, (old, fresh) -> fresh.version() >= old.version() ? fresh : old);
+        return rendered;
+    }
+}
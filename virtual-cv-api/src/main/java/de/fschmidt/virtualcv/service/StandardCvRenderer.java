@@ -0,0 +1,215 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CategoryAttributes;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.domain.ProfileAttributes;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the "Standard CV" view as a standalone HTML page.
+ * <p>
+ * Mirrors {@code StandardCVView.tsx} (same sections, order and CSS class names) but works from the
+ * node graph only: node descriptions and item attributes take the place of the UI's markdown content.
+ */
+@Component
+public class StandardCvRenderer {
+
+    private record Section(String id, String label) {}
+
+    // Same order as CV_SECTIONS in the UI
+    private static final List<Section> SECTIONS = List.of(
+            new Section("work", "Work Experience"),
+            new Section("skills", "Technical Skills"),
+            new Section("education", "Education"),
+            new Section("languages", "Languages")
+    );
+
+    private static final ProfileAttributes NO_PROFILE_ATTRIBUTES =
+            new ProfileAttributes(null, null, null, null, null, null, null, null);
+    private static final ItemAttributes NO_ITEM_ATTRIBUTES = new ItemAttributes(null, null, null, null, null, null);
+
+    private static final String STYLE = """
+            body{margin:0;background:#0f172a;font-family:system-ui,sans-serif;color:#e2e8f0}
+            .cv-container{max-width:800px;margin:40px auto;background:#1e293b;border-radius:16px;overflow:hidden}
+            .cv-header{display:flex;gap:24px;padding:32px;border-bottom:1px solid rgba(255,255,255,.1)}
+            .cv-header-photo img{width:120px;height:120px;border-radius:50%;object-fit:cover}
+            .cv-name{margin:0 0 4px;font-size:2rem}.cv-title{margin:0 0 4px;font-size:1.1rem;color:#818cf8}
+            .cv-contact{display:flex;flex-wrap:wrap;gap:16px;font-size:.9rem;color:#94a3b8}
+            .cv-section{padding:24px 32px;border-bottom:1px solid rgba(255,255,255,.05)}
+            .cv-section-header{font-size:1.2rem;color:#818cf8}
+            .cv-skill-tags{display:flex;flex-wrap:wrap;gap:8px}
+            .cv-skill-tag{padding:4px 12px;border-radius:12px;background:rgba(129,140,248,.15)}
+            .cv-language-item{display:flex;justify-content:space-between}
+            .cv-item-meta{color:#94a3b8;font-size:.9rem}
+            """;
+
+    public String render(Collection<CvNodeDto> nodes) {
+        Map<String, List<CvNodeDto>> children = new HashMap<>();
+        CvNodeDto profile = null;
+        for (CvNodeDto node : nodes) {
+            children.computeIfAbsent(node.parentId(), k -> new ArrayList<>()).add(node);
+            if (profile == null && node.type() == NodeType.PROFILE) {
+                profile = node;
+            }
+        }
+
+        StringBuilder html = new StringBuilder(8192);
+        html.append("<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"utf-8\">")
+                .append("<meta name=\"viewport\" content=\"width=device-width, initial-scale=1\">")
+                .append("<title>").append(profile != null ? text(or(profileAttributes(profile).name(), profile.label())) : "CV")
+                .append("</title><style>").append(STYLE).append("</style></head><body>");
+
+        if (profile == null) {
+            html.append("<div class=\"standard-cv\">No profile data found</div></body></html>");
+            return html.toString();
+        }
+
+        html.append("<div class=\"standard-cv\"><div class=\"cv-container\">");
+        renderHeader(html, profile);
+
+        Map<String, CvNodeDto> categoriesBySection = new HashMap<>();
+        for (CvNodeDto node : nodes) {
+            if (node.type() == NodeType.CATEGORY) {
+                String sectionId = node.attributes() instanceof CategoryAttributes a ? a.sectionId() : null;
+                categoriesBySection.putIfAbsent(or(sectionId, node.id()), node);
+            }
+        }
+        for (Section section : SECTIONS) {
+            CvNodeDto category = categoriesBySection.get(section.id());
+            if (category != null) {
+                renderSection(html, section, children.getOrDefault(category.id(), List.of()), children);
+            }
+        }
+
+        html.append("</div></div></body></html>");
+        return html.toString();
+    }
+
+    private void renderHeader(StringBuilder html, CvNodeDto profile) {
+        ProfileAttributes attributes = profileAttributes(profile);
+        String name = or(attributes.name(), profile.label());
+        html.append("<header class=\"cv-header\">");
+        String photoUrl = attributes.photoUrl();
+        if (photoUrl != null) {
+            html.append("<div class=\"cv-header-photo\"><img src=\"").append(text(photoUrl))
+                    .append("\" alt=\"").append(text(name)).append("\"></div>");
+        }
+        html.append("<div class=\"cv-header-content\">")
+                .append("<h1 class=\"cv-name\">").append(text(name)).append("</h1>")
+                .append("<h2 class=\"cv-title\">").append(text(or(attributes.title(), ""))).append("</h2>")
+                .append("<p class=\"cv-subtitle\">").append(text(or(attributes.subtitle(), ""))).append("</p>")
+                .append("<div class=\"cv-contact\">")
+                .append("<span class=\"cv-experience\">").append(text(or(attributes.experience(), ""))).append("</span>")
+                .append("<span class=\"cv-location\">").append(text(or(attributes.location(), ""))).append("</span>")
+                .append("<span class=\"cv-email\">").append(text(or(attributes.email(), ""))).append("</span>")
+                .append("</div>");
+        if (profile.description() != null) {
+            html.append("<div class=\"cv-about\"><p>").append(text(profile.description())).append("</p></div>");
+        }
+        html.append("</div></header>");
+    }
+
+    private void renderSection(StringBuilder html, Section section, List<CvNodeDto> items,
+                               Map<String, List<CvNodeDto>> children) {
+        html.append("<section class=\"cv-section\"><h2 class=\"cv-section-header\">")
+                .append(text(section.label())).append("</h2><div class=\"cv-section-content\">");
+
+        switch (section.id()) {
+            case "skills" -> {
+                html.append("<div class=\"cv-skills-grid\">");
+                for (CvNodeDto group : items) {
+                    if (group.type() != NodeType.SKILL_GROUP) {
+                        continue;
+                    }
+                    html.append("<div class=\"cv-skill-group\"><h3 class=\"cv-skill-group-title\">")
+                            .append(text(group.label())).append("</h3><div class=\"cv-skill-tags\">");
+                    for (CvNodeDto skill : children.getOrDefault(group.id(), List.of())) {
+                        html.append("<span class=\"cv-skill-tag\">")
+                                .append(text(skill.label().replaceFirst("\n", " "))).append("</span>");
+                    }
+                    html.append("</div></div>");
+                }
+                html.append("</div>");
+            }
+            case "languages" -> {
+                html.append("<div class=\"cv-languages\">");
+                for (CvNodeDto item : items) {
+                    String[] lines = item.label().split("\n", 2);
+                    html.append("<div class=\"cv-language-item\"><span class=\"cv-language-name\">")
+                            .append(text(lines[0])).append("</span><span class=\"cv-language-level\">")
+                            .append(text(lines.length > 1 ? lines[1] : "")).append("</span></div>");
+                }
+                html.append("</div>");
+            }
+            default -> {
+                html.append("<div class=\"cv-timeline\">");
+                for (CvNodeDto item : items) {
+                    renderTimelineItem(html, item);
+                }
+                html.append("</div>");
+            }
+        }
+        html.append("</div></section>");
+    }
+
+    private void renderTimelineItem(StringBuilder html, CvNodeDto item) {
+        html.append("<div class=\"cv-timeline-item\"><h3>")
+                .append(text(item.label().replaceFirst("\n", " - "))).append("</h3>");
+
+        ItemAttributes attributes = item.attributes() instanceof ItemAttributes a ? a : NO_ITEM_ATTRIBUTES;
+        String company = attributes.company();
+        String dateRange = attributes.dateRange();
+        if (company != null || dateRange != null) {
+            html.append("<p class=\"cv-item-meta\">")
+                    .append(text(String.join(" | ", nonNull(company, dateRange))))
+                    .append("</p>");
+        }
+        if (item.description() != null) {
+            html.append("<p>").append(text(item.description())).append("</p>");
+        }
+        List<String> highlights = attributes.highlights();
+        if (highlights != null && !highlights.isEmpty()) {
+            html.append("<ul>");
+            highlights.forEach(h -> html.append("<li>").append(text(h)).append("</li>"));
+            html.append("</ul>");
+        }
+        List<String> technologies = attributes.technologies();
+        if (technologies != null && !technologies.isEmpty()) {
+            html.append("<div class=\"cv-skill-tags\">");
+            technologies.forEach(t -> html.append("<span class=\"cv-skill-tag\">").append(text(t)).append("</span>"));
+            html.append("</div>");
+        }
+        html.append("</div>");
+    }
+
+    private static List<String> nonNull(String... values) {
+        List<String> result = new ArrayList<>();
+        for (String value : values) {
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    private static ProfileAttributes profileAttributes(CvNodeDto profile) {
+        return profile.attributes() instanceof ProfileAttributes a ? a : NO_PROFILE_ATTRIBUTES;
+    }
+
+    private static String or(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static String text(String value) {
+        return HtmlUtils.htmlEscape(value);
+    }
+}
@@ -0,0 +1,219 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.dto.SuggestionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted prefix index for typeahead.
+ * <p>
+ * Terms are stored case-insensitively, under their full text and under each later word start, so
+ * "boo" completes "Spring Boot". Every trie node keeps its best {@value #MAX_SUGGESTIONS}
+ * completions precomputed, so a lookup is a walk down the prefix that returns an existing list.
+ * A weight change only recomputes the nodes on the affected paths, each from its children's lists.
+ * <p>
+ * Not thread-safe.
+ */
+final class SuggestTrie {
+
+    static final int MAX_SUGGESTIONS = 10;
+
+    // Longer values (e.g. sentences in a label) are not worth completing
+    private static final int MAX_TERM_LENGTH = 100;
+
+    private static final char[] NO_KEYS = {};
+    private static final Node[] NO_CHILDREN = {};
+    private static final Term[] NO_TERMS = {};
+
+    private static final Comparator<SuggestionDto> RANKING = Comparator
+            .comparingInt(SuggestionDto::weight).reversed()
+            .thenComparing(SuggestionDto::text, String.CASE_INSENSITIVE_ORDER);
+
+    private static final class Term {
+
+        private final String text;
+        private int weight;
+
+        Term(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Children are kept in a sorted {@code char[]} with a parallel array of nodes (binary search),
+     * which is much smaller than a map per node.
+     */
+    private static final class Node {
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        // Terms whose key ends at this node
+        private Term[] ends = NO_TERMS;
+        private List<SuggestionDto> top = List.of();
+
+        Node child(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            Node child = new Node();
+            keys = insert(keys, at, key);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+            return child;
+        }
+
+        void removeChild(char key) {
+            int at = Arrays.binarySearch(keys, key);
+            char[] shrunkKeys = new char[keys.length - 1];
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, at);
+            System.arraycopy(keys, at + 1, shrunkKeys, at, keys.length - at - 1);
+            System.arraycopy(children, 0, shrunk, 0, at);
+            System.arraycopy(children, at + 1, shrunk, at, children.length - at - 1);
+            keys = shrunkKeys;
+            children = shrunk;
+        }
+
+        void setEnd(Term term, boolean present) {
+            int i = Arrays.asList(ends).indexOf(term);
+            if (present && i < 0) {
+                ends = Arrays.copyOf(ends, ends.length + 1);
+                ends[ends.length - 1] = term;
+            } else if (!present && i >= 0) {
+                Term[] shrunk = new Term[ends.length - 1];
+                System.arraycopy(ends, 0, shrunk, 0, i);
+                System.arraycopy(ends, i + 1, shrunk, i, ends.length - i - 1);
+                ends = shrunk;
+            }
+        }
+
+        boolean isEmpty() {
+            return ends.length == 0 && children.length == 0;
+        }
+
+        void recomputeTop() {
+            // A term can reach this node through several keys (e.g. "Java Jakarta" under "ja")
+            Map<String, SuggestionDto> candidates = new LinkedHashMap<>();
+            for (Term term : ends) {
+                candidates.put(term.text, new SuggestionDto(term.text, term.weight));
+            }
+            for (Node child : children) {
+                for (SuggestionDto suggestion : child.top) {
+                    candidates.putIfAbsent(suggestion.text(), suggestion);
+                }
+            }
+            List<SuggestionDto> ranked = new ArrayList<>(candidates.values());
+            ranked.sort(RANKING);
+            top = List.copyOf(ranked.subList(0, Math.min(MAX_SUGGESTIONS, ranked.size())));
+        }
+    }
+
+    // Folded text -> term
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Node root = new Node();
+
+    void add(String text) {
+        update(text, 1);
+    }
+
+    void remove(String text) {
+        update(text, -1);
+    }
+
+    /**
+     * @return up to {@code limit} completions, best first; a view of shared state, do not modify
+     */
+    List<SuggestionDto> complete(CharSequence prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(Character.toLowerCase(prefix.charAt(i)));
+        }
+        if (node == null || node == root) {
+            return List.of();
+        }
+        List<SuggestionDto> top = node.top;
+        return limit >= top.size() ? top : top.subList(0, limit);
+    }
+
+    private void update(String value, int delta) {
+        if (value == null) {
+            return;
+        }
+        String text = value.strip();
+        if (text.isEmpty() || text.length() > MAX_TERM_LENGTH) {
+            return;
+        }
+        String folded = fold(text);
+        Term term = terms.get(folded);
+        if (term == null) {
+            if (delta < 0) {
+                return;
+            }
+            term = new Term(text);
+            terms.put(folded, term);
+        }
+        term.weight += delta;
+        if (term.weight <= 0) {
+            terms.remove(folded);
+        }
+        for (int start = 0; start < folded.length(); start++) {
+            if (isWordStart(folded, start)) {
+                reindex(folded, start, term);
+            }
+        }
+    }
+
+    private void reindex(String folded, int start, Term term) {
+        int length = folded.length() - start;
+        Node[] path = new Node[length + 1];
+        path[0] = root;
+        for (int i = 0; i < length; i++) {
+            path[i + 1] = path[i].addChild(folded.charAt(start + i));
+        }
+        path[length].setEnd(term, term.weight > 0);
+        for (int i = length; i >= 0; i--) {
+            if (i > 0 && path[i].isEmpty()) {
+                path[i - 1].removeChild(folded.charAt(start + i - 1));
+            } else {
+                path[i].recomputeTop();
+            }
+        }
+    }
+
+    private static boolean isWordStart(String text, int i) {
+        return i == 0 || (Character.isLetterOrDigit(text.charAt(i)) && !Character.isLetterOrDigit(text.charAt(i - 1)));
+    }
+
+    // Char-wise, to match the lookup in complete()
+    private static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static char[] insert(char[] array, int at, char value) {
+        char[] grown = new char[array.length + 1];
+        System.arraycopy(array, 0, grown, 0, at);
+        grown[at] = value;
+        System.arraycopy(array, at, grown, at + 1, array.length - at);
+        return grown;
+    }
+}
@@ -0,0 +1,11 @@
+package de.fschmidt.virtualcv.service;
+
+/**
+ * Thrown when {@link CvWritePipeline} cannot take another command.
+ */
+public class WriteQueueFullException extends RuntimeException {
+
+    public WriteQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+-- Multi-CV support: every node belongs to exactly one CV (tenant).
+-- Existing nodes become the 'default' CV. Node ids are unique per CV, so every CV can use ids
+-- such as 'work' or 'skills', and an exported CV can be imported as another one.
+ALTER TABLE cv_node ADD COLUMN cv_id VARCHAR(50) NOT NULL DEFAULT 'default';
+
+ALTER TABLE cv_node DROP CONSTRAINT cv_node_parent_id_fkey;
+ALTER TABLE cv_node DROP CONSTRAINT cv_node_pkey;
+ALTER TABLE cv_node ADD CONSTRAINT cv_node_pkey PRIMARY KEY (cv_id, id);
+
+-- A parent must belong to the same CV
+ALTER TABLE cv_node ADD CONSTRAINT fk_cv_node_parent
+    FOREIGN KEY (cv_id, parent_id) REFERENCES cv_node(cv_id, id) ON DELETE CASCADE;
+
+-- Composite indexes so per-CV reads only touch that CV's rows.
+-- idx_cv_node_cv_parent also serves the cascading deletes of the parent key.
+CREATE INDEX idx_cv_node_cv_created ON cv_node(cv_id, created_at);
+CREATE INDEX idx_cv_node_cv_parent ON cv_node(cv_id, parent_id, created_at);
+CREATE INDEX idx_cv_node_cv_type ON cv_node(cv_id, type);
+DROP INDEX idx_cv_node_parent_id;
+DROP INDEX idx_cv_node_type;
+
+-- Partitioning (hash or list on cv_id) is intentionally not applied: the composite indexes keep
+-- per-CV cost independent of the number of CVs for the current data sizes.
@@ -0,0 +1,70 @@
+-- Materialized path: every node stores the keys of its ancestors and itself (root.….node),
+-- so subtree and ancestor queries are a single GiST index scan instead of a recursion over parent_id.
+CREATE EXTENSION IF NOT EXISTS ltree;
+
+-- ltree labels are restricted to [A-Za-z0-9_-], node ids are not; paths use a numeric surrogate key
+ALTER TABLE cv_node ADD COLUMN node_key BIGINT GENERATED ALWAYS AS IDENTITY;
+ALTER TABLE cv_node ADD CONSTRAINT uq_cv_node_node_key UNIQUE (node_key);
+ALTER TABLE cv_node ADD COLUMN path ltree;
+
+WITH RECURSIVE tree AS (
+    SELECT cv_id, id, text2ltree(node_key::text) AS path
+    FROM cv_node
+    WHERE parent_id IS NULL
+    UNION ALL
+    SELECT c.cv_id, c.id, t.path || c.node_key::text
+    FROM cv_node c
+    JOIN tree t ON c.cv_id = t.cv_id AND c.parent_id = t.id
+)
+UPDATE cv_node n SET path = tree.path FROM tree WHERE n.cv_id = tree.cv_id AND n.id = tree.id;
+
+CREATE INDEX idx_cv_node_path ON cv_node USING GIST (path);
+
+-- Path maintenance. Bulk imports set virtualcv.defer_path for their transaction and recompute
+-- the paths of the CV once all rows are in (rows may arrive before their parent).
+CREATE FUNCTION cv_node_set_path() RETURNS trigger AS $$
+DECLARE
+    parent_path ltree;
+BEGIN
+    IF current_setting('virtualcv.defer_path', true) = 'on' THEN
+        RETURN NEW;
+    END IF;
+    IF NEW.parent_id IS NULL THEN
+        NEW.path := text2ltree(NEW.node_key::text);
+        RETURN NEW;
+    END IF;
+
+    SELECT path INTO parent_path FROM cv_node WHERE cv_id = NEW.cv_id AND id = NEW.parent_id;
+    -- Prefix check: the new parent must not lie inside the subtree being moved
+    IF TG_OP = 'UPDATE' AND parent_path <@ OLD.path THEN
+        RAISE EXCEPTION 'Node % cannot be moved below its own descendant %', NEW.id, NEW.parent_id
+            USING ERRCODE = 'check_violation';
+    END IF;
+    NEW.path := parent_path || NEW.node_key::text;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Rewrites the paths of all descendants of a moved node in one statement
+CREATE FUNCTION cv_node_move_subtree() RETURNS trigger AS $$
+BEGIN
+    UPDATE cv_node
+    SET path = NEW.path || subpath(path, nlevel(OLD.path))
+    WHERE path <@ OLD.path AND node_key <> NEW.node_key;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER cv_node_path_insert
+    BEFORE INSERT ON cv_node
+    FOR EACH ROW EXECUTE FUNCTION cv_node_set_path();
+
+CREATE TRIGGER cv_node_path_move
+    BEFORE UPDATE OF parent_id ON cv_node
+    FOR EACH ROW WHEN (OLD.parent_id IS DISTINCT FROM NEW.parent_id)
+    EXECUTE FUNCTION cv_node_set_path();
+
+CREATE TRIGGER cv_node_path_move_subtree
+    AFTER UPDATE OF parent_id ON cv_node
+    FOR EACH ROW WHEN (OLD.path IS DISTINCT FROM NEW.path AND OLD.path IS NOT NULL AND NEW.path IS NOT NULL)
+    EXECUTE FUNCTION cv_node_move_subtree();
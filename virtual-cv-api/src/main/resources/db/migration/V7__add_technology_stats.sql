@@ -0,0 +1,166 @@
+-- Aggregates for the "technology frequency" and "skills by proficiency" summaries, so they are not
+-- computed by scanning every node's attributes. Maintained by triggers in the transaction of the
+-- command that changes a node: the old attributes are subtracted and the new ones added.
+CREATE TABLE cv_technology_stats (
+    cv_id VARCHAR(50) NOT NULL,
+    technology TEXT NOT NULL,
+    -- ITEM nodes listing the technology
+    item_count INTEGER NOT NULL,
+    -- Earliest and latest year in the dateRange of those items (null if none has a year)
+    first_year INTEGER,
+    last_year INTEGER,
+    -- Items whose dateRange is ongoing ("2018 - Present")
+    current_count INTEGER NOT NULL,
+    PRIMARY KEY (cv_id, technology)
+);
+
+CREATE TABLE cv_proficiency_stats (
+    cv_id VARCHAR(50) NOT NULL,
+    proficiency TEXT NOT NULL,
+    -- SKILL nodes with this proficiencyLevel
+    skill_count INTEGER NOT NULL,
+    PRIMARY KEY (cv_id, proficiency)
+);
+
+-- Distinct, non-blank technologies of an ITEM's attributes, sorted so that concurrent commands
+-- lock the stats rows in the same order
+CREATE FUNCTION cv_stats_technologies(attributes jsonb) RETURNS SETOF text AS $$
+    SELECT DISTINCT btrim(t #>> '{}') AS technology
+    FROM jsonb_array_elements(
+        CASE WHEN jsonb_typeof(attributes -> 'technologies') = 'array'
+             THEN attributes -> 'technologies' ELSE '[]'::jsonb END) t
+    WHERE jsonb_typeof(t) = 'string' AND btrim(t #>> '{}') <> ''
+    ORDER BY technology
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Year bounds of a dateRange such as "2012 - 2016", "2018 - Present" or "Before 2010"
+CREATE FUNCTION cv_stats_years(attributes jsonb, OUT first_year integer, OUT last_year integer,
+                               OUT ongoing boolean) AS $$
+    SELECT min(m[1]::integer), max(m[1]::integer),
+           coalesce(attributes ->> 'dateRange' ~* '\m(present|current|now|today|heute)\M', false)
+    FROM regexp_matches(coalesce(attributes ->> 'dateRange', ''), '\m(\d{4})\M', 'g') m
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Adds (sign = 1) or subtracts (sign = -1) one node's contribution
+CREATE FUNCTION cv_stats_apply(node_cv_id varchar, node_type varchar, attributes jsonb, sign integer)
+RETURNS void AS $$
+DECLARE
+    years record;
+    tech text;
+    level text;
+    bounds record;
+BEGIN
+    IF attributes IS NULL THEN
+        RETURN;
+    END IF;
+
+    IF node_type = 'ITEM' THEN
+        years := cv_stats_years(attributes);
+        FOR tech IN SELECT cv_stats_technologies(attributes) LOOP
+            IF sign > 0 THEN
+                INSERT INTO cv_technology_stats AS s
+                    (cv_id, technology, item_count, first_year, last_year, current_count)
+                VALUES (node_cv_id, tech, 1, years.first_year, years.last_year, years.ongoing::integer)
+                ON CONFLICT (cv_id, technology) DO UPDATE SET
+                    item_count = s.item_count + 1,
+                    first_year = LEAST(s.first_year, EXCLUDED.first_year),
+                    last_year = GREATEST(s.last_year, EXCLUDED.last_year),
+                    current_count = s.current_count + EXCLUDED.current_count;
+            ELSE
+                UPDATE cv_technology_stats
+                SET item_count = item_count - 1,
+                    current_count = current_count - years.ongoing::integer
+                WHERE cv_id = node_cv_id AND technology = tech
+                RETURNING * INTO bounds;
+
+                IF bounds.item_count <= 0 THEN
+                    DELETE FROM cv_technology_stats WHERE cv_id = node_cv_id AND technology = tech;
+                ELSIF bounds.first_year = years.first_year OR bounds.last_year = years.last_year THEN
+                    -- The removed item may have defined a bound: min/max cannot be subtracted,
+                    -- so recompute them from the remaining items with this technology
+                    UPDATE cv_technology_stats s
+                    SET first_year = r.first_year, last_year = r.last_year
+                    FROM (
+                        SELECT min(y.first_year) AS first_year, max(y.last_year) AS last_year
+                        FROM cv_node n, cv_stats_years(n.attributes) y
+                        WHERE n.cv_id = node_cv_id AND n.type = 'ITEM'
+                          AND n.attributes -> 'technologies' @> jsonb_build_array(tech)
+                    ) r
+                    WHERE s.cv_id = node_cv_id AND s.technology = tech;
+                END IF;
+            END IF;
+        END LOOP;
+
+    ELSIF node_type = 'SKILL' THEN
+        level := btrim(attributes ->> 'proficiencyLevel');
+        IF jsonb_typeof(attributes -> 'proficiencyLevel') IS DISTINCT FROM 'string' OR level = '' THEN
+            RETURN;
+        END IF;
+        INSERT INTO cv_proficiency_stats AS s (cv_id, proficiency, skill_count)
+        VALUES (node_cv_id, level, sign)
+        ON CONFLICT (cv_id, proficiency) DO UPDATE SET skill_count = s.skill_count + sign;
+        IF sign < 0 THEN
+            DELETE FROM cv_proficiency_stats
+            WHERE cv_id = node_cv_id AND proficiency = level AND skill_count <= 0;
+        END IF;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Bulk imports set virtualcv.defer_stats for their transaction and rebuild the CV's stats once
+-- all rows are in, instead of applying one delta per row
+CREATE FUNCTION cv_node_maintain_stats() RETURNS trigger AS $$
+BEGIN
+    IF current_setting('virtualcv.defer_stats', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM cv_stats_apply(OLD.cv_id, OLD.type, OLD.attributes, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM cv_stats_apply(NEW.cv_id, NEW.type, NEW.attributes, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER cv_node_stats_insert_delete
+    AFTER INSERT OR DELETE ON cv_node
+    FOR EACH ROW EXECUTE FUNCTION cv_node_maintain_stats();
+
+CREATE TRIGGER cv_node_stats_update
+    AFTER UPDATE OF attributes ON cv_node
+    FOR EACH ROW WHEN (OLD.attributes IS DISTINCT FROM NEW.attributes)
+    EXECUTE FUNCTION cv_node_maintain_stats();
+
+-- Recomputes the stats of one CV from its nodes (repair, and the end of a bulk import).
+-- Blocks stats maintenance of concurrent commands until it commits, so no delta is lost.
+CREATE FUNCTION cv_stats_rebuild(rebuild_cv_id varchar) RETURNS integer AS $$
+DECLARE
+    technologies integer;
+BEGIN
+    LOCK TABLE cv_technology_stats, cv_proficiency_stats IN EXCLUSIVE MODE;
+    DELETE FROM cv_technology_stats WHERE cv_id = rebuild_cv_id;
+    DELETE FROM cv_proficiency_stats WHERE cv_id = rebuild_cv_id;
+
+    INSERT INTO cv_technology_stats (cv_id, technology, item_count, first_year, last_year, current_count)
+    SELECT rebuild_cv_id, t.technology, count(*), min(y.first_year), max(y.last_year),
+           count(*) FILTER (WHERE y.ongoing)
+    FROM cv_node n, cv_stats_technologies(n.attributes) t(technology), cv_stats_years(n.attributes) y
+    WHERE n.cv_id = rebuild_cv_id AND n.type = 'ITEM'
+    GROUP BY t.technology;
+    GET DIAGNOSTICS technologies = ROW_COUNT;
+
+    INSERT INTO cv_proficiency_stats (cv_id, proficiency, skill_count)
+    SELECT rebuild_cv_id, btrim(n.attributes ->> 'proficiencyLevel'), count(*)
+    FROM cv_node n
+    WHERE n.cv_id = rebuild_cv_id AND n.type = 'SKILL'
+      AND jsonb_typeof(n.attributes -> 'proficiencyLevel') = 'string'
+      AND btrim(n.attributes ->> 'proficiencyLevel') <> ''
+    GROUP BY 2;
+
+    RETURN technologies;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT cv_stats_rebuild(cv_id) FROM (SELECT DISTINCT cv_id FROM cv_node) cvs;
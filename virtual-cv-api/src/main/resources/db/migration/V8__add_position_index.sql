@@ -0,0 +1,8 @@
+-- Viewport queries (GET /cv/nodes?bbox=): the nodes of a CV whose position lies in a box are one
+-- GiST index scan instead of a scan over the whole CV. btree_gist puts cv_id into the same index.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Must match the expression in PointFunctionContributor (point_in_box); unpositioned nodes are never in a box
+CREATE INDEX idx_cv_node_position ON cv_node
+    USING GIST (cv_id, point(position_x, position_y))
+    WHERE position_x IS NOT NULL AND position_y IS NOT NULL;
@@ -0,0 +1,56 @@
+package de.fschmidt.virtualcv;
+
+import de.fschmidt.virtualcv.config.FlywayConfig;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resolves the migration strategy from the real application.properties, as in prod where pods
+ * never migrate on startup.
+ */
+class MigrateRunModeTest {
+
+	private static final String PROD = "--app.flyway.migrate-on-startup=false";
+
+	private static FlywayMigrationStrategy strategy(String... args) {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FlywayConfig.class)
+				.web(WebApplicationType.NONE)
+				.run(args)) {
+			return context.getBean(FlywayMigrationStrategy.class);
+		}
+	}
+
+	@Test
+	void migrateModeShouldMigrateEvenIfPodsDoNot() {
+		Flyway flyway = mock(Flyway.class);
+
+		strategy(VirtualCvApiApplication.migrateArgs(new String[]{PROD})).migrate(flyway);
+
+		verify(flyway).migrate();
+	}
+
+	@Test
+	void apiModeShouldOnlyVerifyTheSchema() {
+		Flyway flyway = mock(Flyway.class);
+		MigrationInfoService info = mock(MigrationInfoService.class);
+		when(flyway.info()).thenReturn(info);
+		when(info.pending()).thenReturn(new MigrationInfo[]{mock(MigrationInfo.class)});
+
+		FlywayMigrationStrategy strategy = strategy(PROD);
+
+		assertThatThrownBy(() -> strategy.migrate(flyway)).hasMessageContaining("pending migrations");
+		verify(flyway, never()).migrate();
+	}
+}
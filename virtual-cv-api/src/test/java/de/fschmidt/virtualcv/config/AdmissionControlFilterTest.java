@@ -0,0 +1,106 @@
+package de.fschmidt.virtualcv.config;
+
+import de.fschmidt.virtualcv.config.AdmissionControlFilter.EndpointClass;
+import de.fschmidt.virtualcv.config.AdmissionControlFilter.Limit;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    private static final Map<EndpointClass, Limit> LIMITS = Map.of(
+            EndpointClass.SEARCH, new Limit(1, 2),
+            EndpointClass.SUGGEST, new Limit(1, 2),
+            EndpointClass.GRAPH, new Limit(1, 2),
+            EndpointClass.NODE, new Limit(1, 2));
+
+    private final AdmissionControlFilter filter = new AdmissionControlFilter(LIMITS, 8, Duration.ZERO);
+
+    @Test
+    void shouldRejectClientOnceBurstIsUsedUp() throws Exception {
+        assertThat(get("/cv/search", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(get("/cv/search", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = get("/cv/search", "10.0.0.1");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("RATE_LIMITED");
+    }
+
+    @Test
+    void shouldLimitClientsAndEndpointClassesSeparately() throws Exception {
+        get("/cv/search", "10.0.0.1");
+        get("/cv/search", "10.0.0.1");
+
+        assertThat(get("/cv/search", "10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(get("/cv/nodes/java", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(get("/cv/layout", "10.0.0.1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldRejectReadsBeyondConcurrencyCap() throws Exception {
+        AdmissionControlFilter capped = new AdmissionControlFilter(LIMITS, 1, Duration.ZERO);
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        // The second request arrives while the first one still holds the only slot
+        FilterChain slow = (request, response) -> nested[0] = get(capped, "/cv/nodes/java", "10.0.0.2");
+
+        capped.doFilter(request("/cv/nodes/java", "10.0.0.1"), new MockHttpServletResponse(), slow);
+
+        assertThat(nested[0].getStatus()).isEqualTo(503);
+        assertThat(nested[0].getHeader("Retry-After")).isEqualTo("1");
+        assertThat(get(capped, "/cv/nodes/java", "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldNotLimitWrites() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = request("/cv/nodes/skill", "10.0.0.1");
+            request.setMethod("POST");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void shouldKeyOnRemoteAddressNotForwardedHeader() throws Exception {
+        get("/cv/search", "10.0.0.1");
+        get("/cv/search", "10.0.0.1");
+
+        // The header is not trusted here: the container resolves it into the remote address if configured
+        MockHttpServletRequest spoofed = request("/cv/search", "10.0.0.9");
+        spoofed.addHeader("X-Forwarded-For", "1.2.3.4, 10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(spoofed, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(get("/cv/search", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    private MockHttpServletResponse get(String path, String client) {
+        return get(filter, path, client);
+    }
+
+    private static MockHttpServletResponse get(AdmissionControlFilter filter, String path, String client) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request(path, client), response, new MockFilterChain());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(client);
+        return request;
+    }
+}
@@ -0,0 +1,103 @@
+package de.fschmidt.virtualcv.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import de.fschmidt.virtualcv.domain.CategoryAttributes;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.domain.SkillAttributes;
+import de.fschmidt.virtualcv.dto.CvDataDto;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CvGraphProtobufHttpMessageConverterTest {
+
+    private final CvGraphProtobufHttpMessageConverter converter = new CvGraphProtobufHttpMessageConverter();
+
+    private static final List<CvNodeDto> NODES = List.of(
+        new CvNodeDto("work", NodeType.CATEGORY, null, "Work", null,
+            new CategoryAttributes("work", Map.of()), 0, -40),
+        new CvNodeDto("job-a", NodeType.ITEM, "work", "Job A", "First job",
+            new ItemAttributes("Acme", "2018 - 2020", null, null, List.of("Java", "Kafka"), Map.of()), null, null),
+        new CvNodeDto("job-b", NodeType.ITEM, "work", "Job B", null,
+            new ItemAttributes("Acme", null, null, null, List.of("Java"), Map.of("isDraft", true)), null, null),
+        new CvNodeDto("java", NodeType.SKILL, "job-a", "Java", null,
+            new SkillAttributes("expert", 10, Map.of("tags", List.of(1, "x"))), null, null));
+
+    private static UnknownFieldSet parse(ByteString bytes) throws Exception {
+        return UnknownFieldSet.parseFrom(bytes);
+    }
+
+    @Test
+    void shouldWriteNodesWithInternedStrings() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CvGraphProtobufHttpMessageConverter.write(NODES, out);
+
+        UnknownFieldSet graph = UnknownFieldSet.parseFrom(out.toByteArray());
+        List<String> strings = graph.getField(1).getLengthDelimitedList().stream()
+            .map(ByteString::toStringUtf8).toList();
+        List<ByteString> nodes = graph.getField(2).getLengthDelimitedList();
+
+        // Each repeated key and value is in the table once, index 0 is the empty string
+        assertThat(strings.getFirst()).isEmpty();
+        assertThat(strings).doesNotHaveDuplicates()
+            .contains("work", "sectionId", "company", "Acme", "technologies", "Java", "Kafka", "isDraft");
+        assertThat(nodes).hasSize(4);
+
+        UnknownFieldSet work = parse(nodes.get(0));
+        assertThat(work.getField(1).getLengthDelimitedList().getFirst().toStringUtf8()).isEqualTo("work");
+        assertThat(work.getField(2).getVarintList()).containsExactly(2L);
+        assertThat(work.hasField(3)).isFalse();
+        assertThat(work.hasField(5)).isFalse();
+        // sint32 zig-zag: 0 -> 0, -40 -> 79
+        assertThat(work.getField(7).getVarintList()).containsExactly(0L);
+        assertThat(work.getField(8).getVarintList()).containsExactly(79L);
+
+        UnknownFieldSet jobA = parse(nodes.get(1));
+        assertThat(strings.get(jobA.getField(3).getVarintList().getFirst().intValue())).isEqualTo("work");
+        assertThat(jobA.getField(5).getLengthDelimitedList().getFirst().toStringUtf8()).isEqualTo("First job");
+        List<ByteString> attributes = jobA.getField(6).getLengthDelimitedList();
+        assertThat(attributes).extracting(a -> strings.get((int) (long) parse(a).getField(1).getVarintList().getFirst()))
+            .containsExactly("company", "dateRange", "technologies");
+        UnknownFieldSet technologies = parse(parse(attributes.get(2)).getField(3).getLengthDelimitedList().getFirst());
+        assertThat(technologies.getField(1).getLengthDelimitedList()).hasSize(1); // packed
+        assertThat(jobA.hasField(7)).isFalse();
+
+        UnknownFieldSet skill = parse(nodes.get(3));
+        List<ByteString> skillAttributes = skill.getField(6).getLengthDelimitedList();
+        assertThat(parse(skillAttributes.get(1)).getField(4).getVarintList()).containsExactly(20L); // sint64 10
+        assertThat(parse(skillAttributes.get(2)).getField(7).getLengthDelimitedList().getFirst().toStringUtf8())
+            .isEqualTo("[1,\"x\"]");
+    }
+
+    @Test
+    void shouldBeSmallerThanJson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CvGraphProtobufHttpMessageConverter.write(NODES, out);
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(new CvDataDto(NODES));
+        assertThat(out.size()).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void shouldOnlyWriteGraphPayloads() {
+        var nodeList = new ParameterizedTypeReference<List<CvNodeDto>>() {}.getType();
+        var stringList = new ParameterizedTypeReference<List<String>>() {}.getType();
+
+        assertThat(converter.canWrite(CvDataDto.class, CvDataDto.class, CvGraphProtobufHttpMessageConverter.PROTOBUF))
+            .isTrue();
+        assertThat(converter.canWrite(nodeList, List.class, CvGraphProtobufHttpMessageConverter.PROTOBUF)).isTrue();
+        assertThat(converter.canWrite(stringList, List.class, CvGraphProtobufHttpMessageConverter.PROTOBUF)).isFalse();
+        assertThat(converter.canWrite(CvNodeDto.class, CvNodeDto.class, CvGraphProtobufHttpMessageConverter.PROTOBUF))
+            .isFalse();
+        assertThat(converter.canRead(CvDataDto.class, null, CvGraphProtobufHttpMessageConverter.PROTOBUF)).isFalse();
+    }
+}
@@ -0,0 +1,105 @@
+package de.fschmidt.virtualcv.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplicaDataSourceTest {
+
+    private final NamedDataSource primary = new NamedDataSource("primary");
+    private final NamedDataSource first = new NamedDataSource("first");
+    private final NamedDataSource second = new NamedDataSource("second");
+
+    private final ReplicaDataSource replicas = new ReplicaDataSource(primary, List.of(
+            new ReplicaDataSource.Replica("first", first),
+            new ReplicaDataSource.Replica("second", second)), Duration.ofSeconds(5));
+
+    @Test
+    void shouldRoundRobinOverReplicas() throws SQLException {
+        assertThat(List.of(name(), name(), name(), name()))
+                .containsExactly("first", "second", "first", "second");
+    }
+
+    @Test
+    void shouldSkipReplicaThatRefusesConnections() throws SQLException {
+        first.down = true;
+
+        assertThat(List.of(name(), name(), name())).containsOnly("second");
+    }
+
+    @Test
+    void shouldFallBackToPrimaryAndRecoverAfterHealthCheck() throws SQLException {
+        first.down = true;
+        second.down = true;
+        assertThat(name()).isEqualTo("primary");
+
+        // The check cannot run its lag query on the stub connections, so they stay out of rotation
+        first.down = false;
+        replicas.checkReplicas();
+        assertThat(name()).isEqualTo("primary");
+    }
+
+    @Test
+    void shouldUsePrimaryWhenRequired() throws SQLException {
+        assertThat(ReadRouting.onPrimary(this::nameUnchecked)).isEqualTo("primary");
+        assertThat(name()).isEqualTo("first");
+    }
+
+    @Test
+    void shouldRejectExplicitCredentials() {
+        assertThatThrownBy(() -> replicas.getConnection("user", "password"))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+    }
+
+    private String name() throws SQLException {
+        return replicas.getConnection().toString();
+    }
+
+    private String nameUnchecked() {
+        try {
+            return name();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hands out connections whose {@code toString()} is the data source name.
+     */
+    private static final class NamedDataSource extends AbstractDataSource {
+
+        private final String name;
+        private boolean down;
+
+        NamedDataSource(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException(name + " is down");
+            }
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "toString" -> name;
+                        case "close" -> null;
+                        default -> throw new SQLException("Not supported by stub");
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
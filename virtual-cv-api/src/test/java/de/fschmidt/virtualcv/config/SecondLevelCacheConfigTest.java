@@ -0,0 +1,38 @@
+package de.fschmidt.virtualcv.config;
+
+import de.fschmidt.virtualcv.domain.CvNode;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecondLevelCacheConfigTest {
+
+    private final SecondLevelCacheConfig config = new SecondLevelCacheConfig();
+
+    @Test
+    void shouldGiveEveryContextItsOwnRegion() {
+        // Two application contexts in one JVM, as with cached test contexts
+        try (CacheManager first = config.hibernateCacheManager(10, Duration.ofMinutes(1));
+             CacheManager second = config.hibernateCacheManager(10, Duration.ofMinutes(1))) {
+            Cache<Object, Object> firstRegion = first.getCache(CvNode.CACHE_REGION);
+            Cache<Object, Object> secondRegion = second.getCache(CvNode.CACHE_REGION);
+            firstRegion.put("node", "first");
+
+            assertThat(secondRegion).isNotSameAs(firstRegion);
+            assertThat(secondRegion.get("node")).isNull();
+        }
+    }
+
+    @Test
+    void shouldCreateRegionAgainAfterClose() {
+        config.hibernateCacheManager(10, Duration.ofMinutes(1)).close();
+
+        try (CacheManager next = config.hibernateCacheManager(10, Duration.ofMinutes(1))) {
+            assertThat(next.getCache(CvNode.CACHE_REGION)).isNotNull();
+        }
+    }
+}
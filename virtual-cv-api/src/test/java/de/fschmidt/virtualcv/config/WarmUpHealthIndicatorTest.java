@@ -0,0 +1,65 @@
+package de.fschmidt.virtualcv.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fschmidt.virtualcv.service.CvNodeService;
+import de.fschmidt.virtualcv.service.CvWarmUpRunner;
+import de.fschmidt.virtualcv.service.CvWarmUpRunner.Progress;
+import de.fschmidt.virtualcv.service.CvWarmUpRunner.State;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WarmUpHealthIndicatorTest {
+
+    private final CvWarmUpRunner runner = mock(CvWarmUpRunner.class);
+    private final WarmUpHealthIndicator indicator = new WarmUpHealthIndicator(runner);
+
+    private Health health(State state) {
+        when(runner.progress()).thenReturn(new Progress(state, 7, Duration.ofMillis(1500)));
+        return indicator.health();
+    }
+
+    @Test
+    void shouldBeOutOfServiceUntilWarmUpFinished() {
+        assertThat(health(State.PENDING).getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health(State.RUNNING).getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    void shouldBeUpOnceWarmUpFinishedOrFailed() {
+        assertThat(health(State.DONE).getStatus()).isEqualTo(Status.UP);
+        // A failed warm-up must not keep the instance out of service
+        assertThat(health(State.FAILED).getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void shouldReportProgress() {
+        assertThat(health(State.RUNNING).getDetails())
+                .containsEntry("state", State.RUNNING)
+                .containsEntry("iterations", 7)
+                .containsEntry("elapsed", "1500 ms");
+    }
+
+    @Test
+    void shouldBeUpWithoutWarmUpInMigrateMode() {
+        // Given
+        CvNodeService service = mock(CvNodeService.class);
+        CvWarmUpRunner migrate = new CvWarmUpRunner(service, new ObjectMapper(),
+                mock(PlatformTransactionManager.class), true, "default", 200, Duration.ofSeconds(60), "migrate");
+
+        // When
+        migrate.warmUp();
+
+        // Then
+        assertThat(new WarmUpHealthIndicator(migrate).health().getStatus()).isEqualTo(Status.UP);
+        verifyNoInteractions(service);
+    }
+}
@@ -1,17 +1,26 @@
 package de.fschmidt.virtualcv.controller;
 
 import de.fschmidt.virtualcv.TestcontainersConfiguration;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.not;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Import(TestcontainersConfiguration.class)
@@ -26,6 +35,9 @@ class CvControllerSecurityTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     void getEndpointsShouldBePublic() throws Exception {
         mockMvc.perform(get("/cv"))
@@ -101,4 +113,56 @@ class CvControllerSecurityTest {
                     """))
             .andExpect(status().isForbidden());
     }
+
+    @Test
+    void createWithTakenIdShouldReturn409AndKeepExistingNode() throws Exception {
+        String id = "dup-" + UUID.randomUUID().toString().substring(0, 8);
+        mockMvc.perform(createCategory(id, "Original"))
+            .andExpect(status().isCreated());
+
+        // Known to the second-level cache
+        mockMvc.perform(createCategory(id, "Overwrite"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.code").value("NODE_EXISTS"));
+
+        // Only the primary key knows it
+        entityManagerFactory.getCache().evictAll();
+        mockMvc.perform(createCategory(id, "Overwrite"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.code").value("NODE_EXISTS"));
+
+        mockMvc.perform(get("/cv/nodes/" + id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.label").value("Original"));
+    }
+
+    @Test
+    void renderedCvShouldAnswerConditionalGetWith304UntilTheGraphChanges() throws Exception {
+        String etag = mockMvc.perform(get("/cv/render/standard"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/html;charset=UTF-8"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/cv/render/standard").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+
+        mockMvc.perform(createCategory("etag-" + UUID.randomUUID().toString().substring(0, 8), "Changed"))
+            .andExpect(status().isCreated());
+        mockMvc.perform(get("/cv/render/standard").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    private MockHttpServletRequestBuilder createCategory(String id, String label) {
+        return post("/cv/nodes/category")
+            .with(jwt().jwt(j -> j
+                .claim("email", "allowed@example.com")
+                .claim("email_verified", true)))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"id":"%s","label":"%s","sectionId":"test"}
+                """.formatted(id, label));
+    }
 }
@@ -0,0 +1,69 @@
+package de.fschmidt.virtualcv.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NodeAttributesCodecTest {
+
+    @Test
+    void shouldDecodeIntoRecordForNodeType() {
+        NodeAttributes attributes = NodeAttributesCodec.read(NodeType.ITEM,
+            "{\"company\": \"Acme\", \"technologies\": [\"Java\", \"Kafka\"], \"dateRange\": \"2020-2024\"}");
+
+        assertThat(attributes).isEqualTo(new ItemAttributes(
+            "Acme", "2020-2024", null, null, List.of("Java", "Kafka"), Map.of()));
+        assertThat(NodeAttributesCodec.read(NodeType.ITEM, (String) null)).isNull();
+    }
+
+    @Test
+    void shouldRoundTripUnknownKeysAndUnexpectedTypes() {
+        String json = "{\"proficiencyLevel\":\"expert\",\"yearsOfExperience\":\"ten\","
+            + "\"isDraft\":true,\"tags\":[1,{\"a\":null}]}";
+
+        SkillAttributes attributes = (SkillAttributes) NodeAttributesCodec.read(NodeType.SKILL, json);
+
+        assertThat(attributes.proficiencyLevel()).isEqualTo("expert");
+        assertThat(attributes.yearsOfExperience()).isNull();
+        assertThat(attributes.extra()).containsEntry("yearsOfExperience", "ten").containsEntry("isDraft", true);
+        assertThat(NodeAttributesCodec.toJson(attributes)).isEqualTo(json);
+    }
+
+    @Test
+    void shouldStoreEmptyAttributesAsNull() {
+        assertThat(NodeAttributesCodec.toJson(new CategoryAttributes(null, Map.of()))).isNull();
+        assertThat(NodeAttributesCodec.toJson(null)).isNull();
+    }
+
+    @Test
+    void shouldMergePatchIntoExistingAttributes() {
+        ProfileAttributes existing = new ProfileAttributes(
+            "Jane", "Developer", null, null, null, "Berlin", null, Map.of("isDraft", true));
+
+        NodeAttributes merged = NodeAttributesCodec.merge(NodeType.PROFILE, existing,
+            Map.of("title", "Architect", "isDraft", false));
+
+        assertThat(merged).isEqualTo(new ProfileAttributes(
+            "Jane", "Architect", null, null, null, "Berlin", null, Map.of("isDraft", false)));
+    }
+
+    @Test
+    void shouldReadAndWriteNodeJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        // attributes before type: decoded once the type is known
+        String json = "{\"id\":\"java\",\"attributes\":{\"proficiencyLevel\":\"expert\",\"note\":\"x\"},"
+            + "\"type\":\"SKILL\",\"label\":\"Java\"}";
+
+        CvNodeDto node = mapper.readValue(json, CvNodeDto.class);
+
+        assertThat(node.attributes()).isEqualTo(new SkillAttributes("expert", null, Map.of("note", "x")));
+        assertThat(mapper.readTree(mapper.writeValueAsString(node)).get("attributes"))
+            .isEqualTo(mapper.readTree("{\"proficiencyLevel\":\"expert\",\"note\":\"x\"}"));
+    }
+}
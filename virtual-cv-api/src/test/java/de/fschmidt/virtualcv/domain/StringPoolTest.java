@@ -0,0 +1,58 @@
+package de.fschmidt.virtualcv.domain;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StringPoolTest {
+
+    @Test
+    void shouldReturnOneInstanceForEqualStrings() {
+        StringPool pool = new StringPool(64);
+        String first = pool.canonical(new String("Spring Boot"));
+
+        assertThat(pool.canonical(new String("Spring Boot"))).isSameAs(first);
+        char[] buffer = "xxSpring Bootxx".toCharArray();
+        assertThat(pool.canonical(buffer, 2, 11)).isSameAs(first);
+        assertThat(pool.canonical(buffer, 2, 6)).isEqualTo("Spring");
+        assertThat(pool.canonical((String) null)).isNull();
+    }
+
+    @Test
+    void shouldNotPoolLongStrings() {
+        StringPool pool = new StringPool(64);
+        String description = "x".repeat(StringPool.MAX_LENGTH + 1);
+
+        assertThat(pool.canonical(new String(description))).isNotSameAs(pool.canonical(new String(description)));
+    }
+
+    @Test
+    void shouldEvictOnCollisionInsteadOfGrowing() {
+        // One slot: every new value replaces the previous one
+        StringPool pool = new StringPool(1);
+        String java = pool.canonical(new String("Java"));
+        pool.canonical("Kotlin");
+
+        assertThat(pool.canonical(new String("Java"))).isEqualTo(java).isNotSameAs(java);
+        assertThatThrownBy(() -> new StringPool(3)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldShareValuesAcrossDecodedNodes() {
+        // Separately decoded, as two rows of a query result
+        CvNodeDto first = new CvNodeDto("item-1", NodeType.ITEM, new String("group-1"), new String("Position"), null,
+            "{\"company\":\"Acme\",\"technologies\":[\"Java\",\"Kafka\"]}", null, null);
+        CvNodeDto second = new CvNodeDto("item-2", NodeType.ITEM, new String("group-1"), new String("Position"), null,
+            "{\"company\":\"Acme\",\"technologies\":[\"Kafka\"]}", null, null);
+
+        assertThat(second.parentId()).isSameAs(first.parentId());
+        assertThat(second.label()).isSameAs(first.label());
+        ItemAttributes firstAttributes = (ItemAttributes) first.attributes();
+        ItemAttributes secondAttributes = (ItemAttributes) second.attributes();
+        assertThat(secondAttributes.company()).isSameAs(firstAttributes.company());
+        assertThat(secondAttributes.technologies().get(0)).isSameAs(firstAttributes.technologies().get(1));
+    }
+}
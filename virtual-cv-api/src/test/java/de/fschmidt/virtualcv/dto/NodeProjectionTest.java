@@ -0,0 +1,46 @@
+package de.fschmidt.virtualcv.dto;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import de.fschmidt.virtualcv.domain.CategoryAttributes;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NodeProjectionTest {
+
+    @Test
+    void shouldPickSmallestProjectionContainingAllFields() {
+        assertThat(NodeProjection.fromFields(null)).isEqualTo(NodeProjection.FULL);
+        assertThat(NodeProjection.fromFields(" ")).isEqualTo(NodeProjection.FULL);
+        assertThat(NodeProjection.fromFields("id, label,positionX")).isEqualTo(NodeProjection.SUMMARY);
+        assertThat(NodeProjection.fromFields("id,description")).isEqualTo(NodeProjection.FULL);
+    }
+
+    @Test
+    void shouldRejectUnknownFields() {
+        assertThatThrownBy(() -> NodeProjection.fromFields("id,salary,age"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Unknown fields: [age, salary]");
+    }
+
+    @Test
+    void shouldLeaveOutFieldsOutsideTheView() throws Exception {
+        // Same setting as Spring Boot's ObjectMapper
+        JsonMapper mapper = JsonMapper.builder().disable(MapperFeature.DEFAULT_VIEW_INCLUSION).build();
+        CvDataDto data = new CvDataDto(List.of(new CvNodeDto("work", NodeType.CATEGORY, "profile", "Work", null,
+            new CategoryAttributes("work", Map.of()), 80, 200)));
+
+        String summary = mapper.writerWithView(NodeProjection.SUMMARY.view()).writeValueAsString(data);
+        String full = mapper.writerWithView(NodeProjection.FULL.view()).writeValueAsString(data);
+
+        assertThat(summary).isEqualTo("{\"nodes\":[{\"id\":\"work\",\"type\":\"CATEGORY\",\"parentId\":\"profile\","
+            + "\"label\":\"Work\",\"positionX\":80,\"positionY\":200}]}");
+        assertThat(full).isEqualTo(mapper.writeValueAsString(data));
+    }
+}
@@ -1,13 +1,27 @@
 package de.fschmidt.virtualcv.repository;
 
+import de.fschmidt.virtualcv.config.SecondLevelCacheConfig;
 import de.fschmidt.virtualcv.domain.CvNode;
 import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.domain.NodeAttributesCodec;
+import de.fschmidt.virtualcv.domain.ProfileAttributes;
+import de.fschmidt.virtualcv.domain.SkillAttributes;
 import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.CvNodeRefDto;
+import de.fschmidt.virtualcv.dto.TechnologyStatsDto.TechnologyCount;
+import de.fschmidt.virtualcv.repository.CvNodeRepository.ProficiencyCount;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -17,11 +31,14 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import static de.fschmidt.virtualcv.domain.CvNode.DEFAULT_CV_ID;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @Testcontainers
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SecondLevelCacheConfig.class)
 class CvNodeRepositoryTest {
 
     @Container
@@ -31,19 +48,25 @@ class CvNodeRepositoryTest {
     @Autowired
     private CvNodeRepository repository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private String uniqueId() {
         return "test-" + UUID.randomUUID().toString().substring(0, 8);
     }
 
+    private static ItemAttributes item(String company, String dateRange, String location, Map<String, Object> extra) {
+        return new ItemAttributes(company, dateRange, location, null, null, extra);
+    }
+
     @Test
     void shouldCreateAndReadNode() {
         // Given
         String id = uniqueId();
         CvNode node = new CvNode(id, NodeType.PROFILE, "John Doe");
         node.setDescription("Software Developer");
-        node.setAttributes(Map.of(
-            "email", "john@example.com",
-            "location", "Berlin"
+        node.setAttributes(new ProfileAttributes(
+            null, null, null, null, "john@example.com", "Berlin", null, Map.of()
         ));
         node.setPositionX(400);
         node.setPositionY(300);
@@ -52,11 +75,12 @@ class CvNodeRepositoryTest {
         repository.save(node);
 
         // Then
-        Optional<CvNode> found = repository.findById(id);
+        Optional<CvNode> found = repository.findById(new CvNode.Key(DEFAULT_CV_ID, id));
         assertThat(found).isPresent();
         assertThat(found.get().getLabel()).isEqualTo("John Doe");
         assertThat(found.get().getType()).isEqualTo(NodeType.PROFILE);
-        assertThat(found.get().getAttributes()).containsEntry("email", "john@example.com");
+        assertThat(found.get().getAttributes())
+            .isInstanceOfSatisfying(ProfileAttributes.class, a -> assertThat(a.email()).isEqualTo("john@example.com"));
     }
 
     @Test
@@ -69,13 +93,13 @@ class CvNodeRepositoryTest {
         repository.save(parent);
 
         CvNode child = new CvNode(childId, NodeType.CATEGORY, "Test Child");
-        child.setParent(parent);
+        child.setParentId(parent.getId());
 
         // When
         repository.save(child);
 
         // Then
-        List<CvNode> children = repository.findByParentId(parentId);
+        List<CvNode> children = repository.findByCvIdAndParentId(DEFAULT_CV_ID, parentId);
         assertThat(children).hasSize(1);
         assertThat(children.get(0).getLabel()).isEqualTo("Test Child");
     }
@@ -86,14 +110,14 @@ class CvNodeRepositoryTest {
         String id = uniqueId();
         CvNode node = new CvNode(id, NodeType.SKILL, "To Delete");
         repository.save(node);
-        assertThat(repository.findById(id)).isPresent();
+        assertThat(repository.findById(new CvNode.Key(DEFAULT_CV_ID, id))).isPresent();
 
         // When - hard delete
         repository.delete(node);
 
         // Then - completely gone from database
-        assertThat(repository.findById(id)).isEmpty();
-        assertThat(repository.findByIdAsDto(id)).isEmpty();
+        assertThat(repository.findById(new CvNode.Key(DEFAULT_CV_ID, id))).isEmpty();
+        assertThat(repository.findByIdAsDto(DEFAULT_CV_ID, id)).isEmpty();
     }
 
     @Test
@@ -109,17 +133,38 @@ class CvNodeRepositoryTest {
         repository.save(node2);
 
         // When
-        List<CvNodeDto> results = repository.search(uniqueTerm);
+        List<CvNodeDto> results = repository.search(DEFAULT_CV_ID, uniqueTerm, 50, 0);
 
         // Then - should find the matching node
         assertThat(results).hasSize(1);
         assertThat(results.get(0).label()).contains(uniqueTerm);
     }
 
+    @Test
+    void shouldPageSearchResults() {
+        // Given - five matching nodes
+        String uniqueTerm = "PagedSearchTerm" + UUID.randomUUID().toString().substring(0, 4);
+        for (int i = 0; i < 5; i++) {
+            repository.save(new CvNode(uniqueId(), NodeType.SKILL, uniqueTerm + " " + i));
+        }
+
+        // When
+        List<CvNodeDto> all = repository.search(DEFAULT_CV_ID, uniqueTerm, 50, 0);
+        List<CvNodeDto> first = repository.search(DEFAULT_CV_ID, uniqueTerm, 2, 0);
+        List<CvNodeDto> second = repository.search(DEFAULT_CV_ID, uniqueTerm, 2, 2);
+        List<CvNodeDto> last = repository.search(DEFAULT_CV_ID, uniqueTerm, 2, 4);
+
+        // Then - pages are consecutive slices of one stable order
+        assertThat(all).hasSize(5);
+        assertThat(first).containsExactlyElementsOf(all.subList(0, 2));
+        assertThat(second).containsExactlyElementsOf(all.subList(2, 4));
+        assertThat(last).containsExactlyElementsOf(all.subList(4, 5));
+    }
+
     @Test
     void shouldFindAllNodes() {
         // Given - count before and after
-        int countBefore = repository.findAllAsDto().size();
+        int countBefore = repository.findAllAsDto(DEFAULT_CV_ID).size();
 
         CvNode node1 = new CvNode(uniqueId(), NodeType.PROFILE, "New Node 1");
         repository.save(node1);
@@ -128,7 +173,7 @@ class CvNodeRepositoryTest {
         repository.save(node2);
 
         // When
-        List<CvNodeDto> results = repository.findAllAsDto();
+        List<CvNodeDto> results = repository.findAllAsDto(DEFAULT_CV_ID);
 
         // Then - should have two more than before
         assertThat(results).hasSize(countBefore + 2);
@@ -142,34 +187,104 @@ class CvNodeRepositoryTest {
         repository.save(parent);
 
         CvNode child1 = new CvNode(uniqueId(), NodeType.CATEGORY, "Child 1");
-        child1.setParent(parent);
+        child1.setParentId(parent.getId());
         repository.save(child1);
 
         CvNode child2 = new CvNode(uniqueId(), NodeType.CATEGORY, "Child 2");
-        child2.setParent(parent);
+        child2.setParentId(parent.getId());
         repository.save(child2);
 
         // When
-        List<CvNodeDto> children = repository.findByParentIdAsDto(parentId);
+        List<CvNodeDto> children = repository.findByParentIdAsDto(DEFAULT_CV_ID, parentId);
 
         // Then
         assertThat(children).hasSize(2);
     }
 
+    @Test
+    void shouldReadSummaryWithoutDescriptionAndAttributes() {
+        // Given
+        String parentId = uniqueId();
+        CvNode parent = new CvNode(parentId, NodeType.CATEGORY, "Parent");
+        repository.save(parent);
+        CvNode child = new CvNode(uniqueId(), NodeType.ITEM, "Child");
+        child.setParentId(parent.getId());
+        child.setDescription("Long description");
+        child.setAttributes(item("Acme", "2020 - 2022", null, Map.of()));
+        child.setPositionX(10);
+        child.setPositionY(-20);
+        repository.save(child);
+
+        // When
+        List<CvNodeDto> children = repository.findByParentIdAsSummaryDto(DEFAULT_CV_ID, parentId);
+
+        // Then
+        assertThat(children).containsExactly(
+            new CvNodeDto(child.getId(), NodeType.ITEM, parentId, "Child", 10, -20));
+        assertThat(repository.findByIdAsSummaryDto(DEFAULT_CV_ID, child.getId()).orElseThrow().description())
+            .isNull();
+    }
+
+    @Test
+    void shouldFindNodesInBox() {
+        // Given
+        String cvId = "cv-" + UUID.randomUUID().toString().substring(0, 8);
+        CvNode inside = new CvNode(uniqueId(), NodeType.SKILL, "Inside");
+        inside.setCvId(cvId);
+        inside.setPositionX(100);
+        inside.setPositionY(-50);
+        CvNode outside = new CvNode(uniqueId(), NodeType.SKILL, "Outside");
+        outside.setCvId(cvId);
+        outside.setPositionX(500);
+        outside.setPositionY(0);
+        CvNode unpositioned = new CvNode(uniqueId(), NodeType.SKILL, "Unpositioned");
+        unpositioned.setCvId(cvId);
+        repository.saveAll(List.of(inside, outside, unpositioned));
+
+        // When
+        List<CvNodeDto> nodes = repository.findInBoxAsSummaryDto(cvId, 0, -100, 100, 100);
+
+        // Then - borders are included
+        assertThat(nodes).extracting(CvNodeDto::id).containsExactly(inside.getId());
+        assertThat(repository.findInBoxAsDto(cvId, -1000, -1000, 1000, 1000)).hasSize(2);
+        assertThat(repository.findInBoxAsDto(DEFAULT_CV_ID, 0, -100, 100, 100))
+            .extracting(CvNodeDto::id).doesNotContain(inside.getId());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldServePrimaryKeyLoadsFromSecondLevelCache() {
+        // Given - committed (each call runs in its own transaction), which caches the node
+        String id = uniqueId();
+        repository.save(new CvNode(id, NodeType.SKILL, "Cached"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long statements = statistics.getPrepareStatementCount();
+
+        // When
+        CvNode node = repository.findById(new CvNode.Key(DEFAULT_CV_ID, id)).orElseThrow();
+
+        // Then - no query
+        assertThat(node.getLabel()).isEqualTo("Cached");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(hits + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        repository.deleteById(new CvNode.Key(DEFAULT_CV_ID, id));
+    }
+
     @Test
     void shouldLoadSeedData() {
         // Verify seed data from V3 migration is loaded
-        Optional<CvNodeDto> profile = repository.findByIdAsDto("profile");
+        Optional<CvNodeDto> profile = repository.findByIdAsDto(DEFAULT_CV_ID, "profile");
         assertThat(profile).isPresent();
         assertThat(profile.get().label()).isEqualTo("Frank Schmidt");
         assertThat(profile.get().type()).isEqualTo(NodeType.PROFILE);
 
         // Verify categories exist
-        List<CvNodeDto> categories = repository.findByParentIdAsDto("profile");
+        List<CvNodeDto> categories = repository.findByParentIdAsDto(DEFAULT_CV_ID, "profile");
         assertThat(categories).hasSizeGreaterThanOrEqualTo(4);
 
         // Verify skills exist
-        List<CvNodeDto> backendSkills = repository.findByParentIdAsDto("skill-backend");
+        List<CvNodeDto> backendSkills = repository.findByParentIdAsDto(DEFAULT_CV_ID, "skill-backend");
         assertThat(backendSkills).hasSizeGreaterThanOrEqualTo(4);
     }
 
@@ -182,19 +297,17 @@ class CvNodeRepositoryTest {
         // Given
         String id = uniqueId();
         CvNode node = new CvNode(id, NodeType.ITEM, "Draft Item");
-        node.setAttributes(Map.of(
-            "isDraft", true,
-            "company", "Test Company"
-        ));
+        node.setAttributes(item("Test Company", null, null, Map.of("isDraft", true)));
 
         // When
         repository.save(node);
 
         // Then
-        Optional<CvNode> found = repository.findById(id);
+        Optional<CvNode> found = repository.findById(new CvNode.Key(DEFAULT_CV_ID, id));
         assertThat(found).isPresent();
-        assertThat(found.get().getAttributes()).containsEntry("isDraft", true);
-        assertThat(found.get().getAttributes()).containsEntry("company", "Test Company");
+        ItemAttributes attributes = (ItemAttributes) found.get().getAttributes();
+        assertThat(attributes.extra()).containsEntry("isDraft", true);
+        assertThat(attributes.company()).isEqualTo("Test Company");
     }
 
     @Test
@@ -202,25 +315,19 @@ class CvNodeRepositoryTest {
         // Given - create a draft node
         String id = uniqueId();
         CvNode node = new CvNode(id, NodeType.ITEM, "Draft Item");
-        node.setAttributes(Map.of(
-            "isDraft", true,
-            "company", "Test Company",
-            "dateRange", "2020-2024"
-        ));
+        node.setAttributes(item("Test Company", "2020-2024", null, Map.of("isDraft", true)));
         repository.save(node);
 
         // When - publish by merging isDraft: false
-        CvNode saved = repository.findById(id).orElseThrow();
-        Map<String, Object> updatedAttrs = new java.util.HashMap<>(saved.getAttributes());
-        updatedAttrs.put("isDraft", false);
-        saved.setAttributes(updatedAttrs);
+        CvNode saved = repository.findById(new CvNode.Key(DEFAULT_CV_ID, id)).orElseThrow();
+        saved.setAttributes(NodeAttributesCodec.merge(saved.getType(), saved.getAttributes(), Map.of("isDraft", false)));
         repository.save(saved);
 
         // Then - isDraft is false but other attributes are preserved
-        CvNode published = repository.findById(id).orElseThrow();
-        assertThat(published.getAttributes()).containsEntry("isDraft", false);
-        assertThat(published.getAttributes()).containsEntry("company", "Test Company");
-        assertThat(published.getAttributes()).containsEntry("dateRange", "2020-2024");
+        ItemAttributes published = (ItemAttributes) repository.findById(new CvNode.Key(DEFAULT_CV_ID, id)).orElseThrow().getAttributes();
+        assertThat(published.extra()).containsEntry("isDraft", false);
+        assertThat(published.company()).isEqualTo("Test Company");
+        assertThat(published.dateRange()).isEqualTo("2020-2024");
     }
 
     @Test
@@ -228,15 +335,15 @@ class CvNodeRepositoryTest {
         // Given - draft nodes are stored like any other node
         String id = uniqueId();
         CvNode draftNode = new CvNode(id, NodeType.SKILL, "Draft Skill");
-        draftNode.setAttributes(Map.of("isDraft", true));
+        draftNode.setAttributes(new SkillAttributes(null, null, Map.of("isDraft", true)));
         repository.save(draftNode);
 
         // Then - draft nodes are returned in all queries (filtering happens in frontend)
-        assertThat(repository.findById(id)).isPresent();
-        assertThat(repository.findByIdAsDto(id)).isPresent();
+        assertThat(repository.findById(new CvNode.Key(DEFAULT_CV_ID, id))).isPresent();
+        assertThat(repository.findByIdAsDto(DEFAULT_CV_ID, id)).isPresent();
 
         // Search should also find draft nodes
-        List<CvNodeDto> searchResults = repository.search("Draft Skill");
+        List<CvNodeDto> searchResults = repository.search(DEFAULT_CV_ID, "Draft Skill", 50, 0);
         assertThat(searchResults).anyMatch(dto -> dto.id().equals(id));
     }
 
@@ -245,27 +352,251 @@ class CvNodeRepositoryTest {
         // Given - a node with multiple attributes
         String id = uniqueId();
         CvNode node = new CvNode(id, NodeType.ITEM, "Job Title");
-        node.setAttributes(Map.of(
-            "company", "Acme Corp",
-            "dateRange", "2020-Present",
-            "location", "Berlin",
-            "isDraft", true
-        ));
+        node.setAttributes(item("Acme Corp", "2020-Present", "Berlin", Map.of("isDraft", true)));
         repository.save(node);
 
         // When - update only isDraft (simulating publish)
-        CvNode existing = repository.findById(id).orElseThrow();
-        Map<String, Object> attrs = new java.util.HashMap<>(existing.getAttributes());
-        attrs.put("isDraft", false);
-        existing.setAttributes(attrs);
+        CvNode existing = repository.findById(new CvNode.Key(DEFAULT_CV_ID, id)).orElseThrow();
+        existing.setAttributes(NodeAttributesCodec.merge(existing.getType(), existing.getAttributes(), Map.of("isDraft", false)));
         repository.save(existing);
 
         // Then - all other attributes are preserved
-        CvNode updated = repository.findById(id).orElseThrow();
-        Map<String, Object> updatedAttrs = updated.getAttributes();
-        assertThat(updatedAttrs).containsEntry("company", "Acme Corp");
-        assertThat(updatedAttrs).containsEntry("dateRange", "2020-Present");
-        assertThat(updatedAttrs).containsEntry("location", "Berlin");
-        assertThat(updatedAttrs).containsEntry("isDraft", false);
+        ItemAttributes updatedAttrs = (ItemAttributes) repository.findById(new CvNode.Key(DEFAULT_CV_ID, id)).orElseThrow().getAttributes();
+        assertThat(updatedAttrs.company()).isEqualTo("Acme Corp");
+        assertThat(updatedAttrs.dateRange()).isEqualTo("2020-Present");
+        assertThat(updatedAttrs.location()).isEqualTo("Berlin");
+        assertThat(updatedAttrs.extra()).containsEntry("isDraft", false);
+    }
+
+    // ============================================================
+    // Multi-CV Tests
+    // ============================================================
+
+    @Test
+    void shouldScopeQueriesToCv() {
+        // Given - two nodes with the same label in different CVs
+        String cvId = "cv-" + UUID.randomUUID().toString().substring(0, 8);
+        String label = "ScopedNode" + UUID.randomUUID().toString().substring(0, 4);
+
+        CvNode own = new CvNode(uniqueId(), NodeType.PROFILE, label);
+        own.setCvId(cvId);
+        repository.save(own);
+        repository.save(new CvNode(uniqueId(), NodeType.PROFILE, label));
+
+        // Then - each CV only sees its own node
+        assertThat(repository.findAllAsDto(cvId)).extracting(CvNodeDto::id).containsExactly(own.getId());
+        assertThat(repository.search(cvId, label, 50, 0)).hasSize(1);
+        assertThat(repository.search(DEFAULT_CV_ID, label, 50, 0)).hasSize(1);
+        assertThat(repository.findByIdAsDto(DEFAULT_CV_ID, own.getId())).isEmpty();
+        assertThat(repository.findByCvIdAndId(cvId, own.getId())).isPresent();
+        assertThat(repository.existsByCvId(cvId)).isTrue();
+        assertThat(repository.existsByCvId("cv-unknown")).isFalse();
+    }
+
+    @Test
+    void shouldKeepNodesWithTheSameIdApartPerCv() {
+        // Given - another CV reusing the ids of the default CV's profile and work category
+        String cvId = "cv-" + UUID.randomUUID().toString().substring(0, 8);
+        CvNode profile = new CvNode("profile", NodeType.PROFILE, "Other profile");
+        profile.setCvId(cvId);
+        CvNode work = new CvNode("work", NodeType.CATEGORY, "Other work");
+        work.setCvId(cvId);
+        work.setParentId(repository.saveAndFlush(profile).getId());
+        repository.saveAndFlush(work);
+
+        // Then - every lookup stays within its CV
+        assertThat(repository.findById(new CvNode.Key(cvId, "work")).orElseThrow().getLabel()).isEqualTo("Other work");
+        assertThat(repository.findById(new CvNode.Key(DEFAULT_CV_ID, "work")).orElseThrow().getLabel())
+                .isNotEqualTo("Other work");
+        assertThat(repository.findByParentIdAsDto(cvId, "profile")).extracting(CvNodeDto::id).containsExactly("work");
+        assertThat(repository.findDescendantsAsDto(cvId, "profile")).extracting(CvNodeDto::id).containsExactly("work");
+        assertThat(repository.findAncestorsAsRefDto(cvId, "work")).extracting(CvNodeRefDto::label)
+                .containsExactly("Other profile");
+    }
+
+    @Test
+    void shouldCountNodesPerCv() {
+        // Given - a CV with two nodes
+        String cvId = "cv-" + UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < 2; i++) {
+            CvNode node = new CvNode(uniqueId(), NodeType.PROFILE, "Counted");
+            node.setCvId(cvId);
+            repository.saveAndFlush(node);
+        }
+
+        // Then - its count and latest update are reported next to the other CVs
+        assertThat(repository.countNodesByCv())
+                .filteredOn(count -> count.cvId().equals(cvId))
+                .singleElement()
+                .satisfies(count -> {
+                    assertThat(count.nodeCount()).isEqualTo(2);
+                    assertThat(count.lastUpdate()).isNotNull();
+                });
+        assertThat(repository.countNodesByCv()).extracting(CvNodeRepository.CvNodeCount::cvId).contains(DEFAULT_CV_ID);
+    }
+
+    // ============================================================
+    // Materialized Path Tests
+    // ============================================================
+
+    private CvNode saveChild(CvNode parent, NodeType type) {
+        CvNode child = new CvNode(uniqueId(), type, "Node");
+        child.setParentId(parent.getId());
+        return repository.saveAndFlush(child);
+    }
+
+    @Test
+    void shouldFindDescendantsAndAncestorsByPath() {
+        // Given - root > category > item > skill
+        CvNode root = repository.saveAndFlush(new CvNode(uniqueId(), NodeType.PROFILE, "Root"));
+        CvNode category = saveChild(root, NodeType.CATEGORY);
+        CvNode item = saveChild(category, NodeType.ITEM);
+        CvNode skill = saveChild(item, NodeType.SKILL);
+
+        // Then
+        assertThat(repository.findDescendantsAsDto(DEFAULT_CV_ID, root.getId()))
+                .extracting(CvNodeDto::id)
+                .containsExactly(category.getId(), item.getId(), skill.getId());
+        assertThat(repository.findDescendantsAsDto(DEFAULT_CV_ID, skill.getId())).isEmpty();
+        assertThat(repository.findAncestorsAsRefDto(DEFAULT_CV_ID, skill.getId()))
+                .extracting(CvNodeRefDto::id)
+                .containsExactly(root.getId(), category.getId(), item.getId());
+    }
+
+    @Test
+    void shouldRewriteSubtreePathsOnMove() {
+        // Given - root > (a > a1), root > b
+        CvNode root = repository.saveAndFlush(new CvNode(uniqueId(), NodeType.PROFILE, "Root"));
+        CvNode a = saveChild(root, NodeType.CATEGORY);
+        CvNode a1 = saveChild(a, NodeType.ITEM);
+        CvNode b = saveChild(root, NodeType.CATEGORY);
+
+        // When - move a below b
+        a.setParentId(b.getId());
+        repository.saveAndFlush(a);
+
+        // Then - the whole subtree of a follows
+        assertThat(repository.findDescendantsAsDto(DEFAULT_CV_ID, b.getId()))
+                .extracting(CvNodeDto::id)
+                .containsExactly(a.getId(), a1.getId());
+        assertThat(repository.findAncestorsAsRefDto(DEFAULT_CV_ID, a1.getId()))
+                .extracting(CvNodeRefDto::id)
+                .containsExactly(root.getId(), b.getId(), a.getId());
+    }
+
+    @Test
+    void shouldDetectSubtreeMembership() {
+        // Given
+        CvNode root = repository.saveAndFlush(new CvNode(uniqueId(), NodeType.PROFILE, "Root"));
+        CvNode child = saveChild(root, NodeType.CATEGORY);
+
+        // Then - a node is in its own subtree, but not in its descendants'
+        assertThat(repository.isInSubtree(DEFAULT_CV_ID, root.getId(), child.getId())).isTrue();
+        assertThat(repository.isInSubtree(DEFAULT_CV_ID, root.getId(), root.getId())).isTrue();
+        assertThat(repository.isInSubtree(DEFAULT_CV_ID, child.getId(), root.getId())).isFalse();
+        assertThat(repository.isInSubtree("other-cv", root.getId(), child.getId())).isFalse();
+    }
+
+    @Test
+    void shouldDeleteSubtreeInOneStatement() {
+        // Given
+        CvNode root = repository.saveAndFlush(new CvNode(uniqueId(), NodeType.PROFILE, "Root"));
+        CvNode child = saveChild(root, NodeType.CATEGORY);
+        saveChild(child, NodeType.ITEM);
+
+        // When
+        int deleted = repository.deleteSubtree(DEFAULT_CV_ID, root.getId());
+
+        // Then
+        assertThat(deleted).isEqualTo(3);
+        assertThat(repository.findByIdAsDto(DEFAULT_CV_ID, child.getId())).isEmpty();
+        assertThat(repository.deleteSubtree(DEFAULT_CV_ID, root.getId())).isZero();
+    }
+
+    @Test
+    void shouldMoveSubtreeAndShiftPositionsInOneStatement() {
+        // Given - root > a > a1 (positioned) > a2 (unpositioned), root > b
+        CvNode root = repository.saveAndFlush(new CvNode(uniqueId(), NodeType.PROFILE, "Root"));
+        CvNode a = saveChild(root, NodeType.CATEGORY);
+        CvNode a1 = saveChild(a, NodeType.ITEM);
+        CvNode a2 = saveChild(a1, NodeType.SKILL);
+        CvNode b = saveChild(root, NodeType.CATEGORY);
+        a.setPositionX(10);
+        a.setPositionY(20);
+        a1.setPositionX(30);
+        a1.setPositionY(40);
+        repository.saveAllAndFlush(List.of(a, a1));
+
+        // When - move a below b, 100 to the right and 50 up
+        int moved = repository.moveSubtree(DEFAULT_CV_ID, a.getId(), b.getId(), 100, -50);
+
+        // Then - the whole subtree follows, positions shifted, paths rewritten
+        assertThat(moved).isEqualTo(3);
+        assertThat(repository.findDescendantsAsDto(DEFAULT_CV_ID, b.getId()))
+                .extracting(CvNodeDto::id, CvNodeDto::parentId, CvNodeDto::positionX, CvNodeDto::positionY)
+                .containsExactly(
+                        tuple(a.getId(), b.getId(), 110, -30),
+                        tuple(a1.getId(), a.getId(), 130, -10),
+                        tuple(a2.getId(), a1.getId(), null, null));
+        assertThat(repository.findByIdAsDto(DEFAULT_CV_ID, root.getId()).orElseThrow().positionX()).isNull();
+        assertThat(repository.moveSubtree("other-cv", a.getId(), root.getId(), 1, 1)).isZero();
+    }
+
+    // ============================================================
+    // Technology Stats Tests
+    // ============================================================
+
+    private CvNode saveItem(String cvId, CvNode parent, String dateRange, List<String> technologies) {
+        CvNode node = new CvNode(uniqueId(), NodeType.ITEM, "Item");
+        node.setCvId(cvId);
+        node.setParentId(parent != null ? parent.getId() : null);
+        node.setAttributes(new ItemAttributes(null, dateRange, null, null, technologies, Map.of()));
+        return repository.saveAndFlush(node);
+    }
+
+    @Test
+    void shouldMaintainTechnologyStatsIncrementally() {
+        // Given
+        String cvId = "cv-" + UUID.randomUUID().toString().substring(0, 8);
+        CvNode old = saveItem(cvId, null, "2005 - 2007", List.of("Java", "Rust", "Rust"));
+        CvNode recent = saveItem(cvId, old, "2021 - Present", List.of("Rust", "Zig"));
+        CvNode skill = new CvNode(uniqueId(), NodeType.SKILL, "Skill");
+        skill.setCvId(cvId);
+        skill.setAttributes(new SkillAttributes("expert", null, Map.of()));
+        repository.saveAndFlush(skill);
+
+        // Then - duplicates within an item count once
+        assertThat(repository.findTechnologyStats(cvId)).containsExactly(
+                new TechnologyCount("Rust", 2, 2005, 2021, true),
+                new TechnologyCount("Java", 1, 2005, 2007, false),
+                new TechnologyCount("Zig", 1, 2021, 2021, true));
+        assertThat(repository.findProficiencyStats(cvId)).containsExactly(new ProficiencyCount("expert", 1));
+
+        // When - an attribute change is applied as a delta, a delete removes the subtree's share
+        recent.setAttributes(new ItemAttributes(null, "2021 - Present", null, null, List.of("Go"), Map.of()));
+        repository.saveAndFlush(recent);
+        repository.deleteSubtree(cvId, old.getId());
+
+        // Then
+        assertThat(repository.findTechnologyStats(cvId)).isEmpty();
+        assertThat(repository.findProficiencyStats(cvId)).containsExactly(new ProficiencyCount("expert", 1));
+    }
+
+    @Test
+    void shouldRecomputeYearBoundsWhenItemIsRemoved() {
+        // Given
+        String cvId = "cv-" + UUID.randomUUID().toString().substring(0, 8);
+        saveItem(cvId, null, "2012 - 2016", List.of("Java"));
+        CvNode latest = saveItem(cvId, null, "2018 - 2020", List.of("Java"));
+
+        // When
+        repository.deleteSubtree(cvId, latest.getId());
+
+        // Then
+        assertThat(repository.findTechnologyStats(cvId))
+                .containsExactly(new TechnologyCount("Java", 1, 2012, 2016, false));
+        assertThat(repository.rebuildStats(cvId)).isEqualTo(1);
+        assertThat(repository.findTechnologyStats(cvId))
+                .containsExactly(new TechnologyCount("Java", 1, 2012, 2016, false));
     }
 }
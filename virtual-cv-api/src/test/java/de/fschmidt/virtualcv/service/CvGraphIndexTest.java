@@ -0,0 +1,79 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeRefDto;
+import de.fschmidt.virtualcv.dto.CvNodeStatsDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CvGraphIndexTest {
+
+    private final CvGraphIndex index = new CvGraphIndex(List.of(
+        new CvNodeRefDto("profile", NodeType.PROFILE, null, "Profile"),
+        new CvNodeRefDto("work", NodeType.CATEGORY, "profile", "Work"),
+        new CvNodeRefDto("skills", NodeType.CATEGORY, "profile", "Skills"),
+        new CvNodeRefDto("job-1", NodeType.ITEM, "work", "Job 1"),
+        new CvNodeRefDto("backend", NodeType.SKILL_GROUP, "skills", "Backend"),
+        new CvNodeRefDto("java", NodeType.SKILL, "backend", "Java"),
+        new CvNodeRefDto("spring", NodeType.SKILL, "backend", "Spring")
+    ));
+
+    @Test
+    void shouldReturnAncestorsFromRoot() {
+        List<CvNodeRefDto> path = index.ancestors("java").orElseThrow();
+
+        assertThat(path).extracting(CvNodeRefDto::id).containsExactly("profile", "skills", "backend");
+        assertThat(index.ancestors("profile").orElseThrow()).isEmpty();
+        assertThat(index.ancestors("unknown")).isEmpty();
+    }
+
+    @Test
+    void shouldCheckAncestry() {
+        assertThat(index.isAncestor("profile", "spring")).isTrue();
+        assertThat(index.isAncestor("skills", "java")).isTrue();
+        assertThat(index.isAncestor("work", "java")).isFalse();
+        assertThat(index.isAncestor("java", "java")).isFalse();
+        assertThat(index.isAncestor("java", "backend")).isFalse();
+    }
+
+    @Test
+    void shouldAggregateDescendantsByType() {
+        CvNodeStatsDto stats = index.stats("skills").orElseThrow();
+
+        assertThat(stats.depth()).isEqualTo(1);
+        assertThat(stats.descendantCount()).isEqualTo(3);
+        assertThat(stats.descendantsByType())
+            .containsEntry(NodeType.SKILL_GROUP, 1)
+            .containsEntry(NodeType.SKILL, 2)
+            .doesNotContainKey(NodeType.CATEGORY);
+        assertThat(stats.maxDepth()).isEqualTo(2);
+
+        CvNodeStatsDto root = index.stats("profile").orElseThrow();
+        assertThat(root.descendantCount()).isEqualTo(6);
+        assertThat(root.maxDepth()).isEqualTo(3);
+
+        CvNodeStatsDto leaf = index.stats("java").orElseThrow();
+        assertThat(leaf.descendantCount()).isZero();
+        assertThat(leaf.maxDepth()).isZero();
+    }
+
+    @Test
+    void shouldListSubtreeIds() {
+        assertThat(index.subtreeIds("skills")).containsExactlyInAnyOrder("skills", "backend", "java", "spring");
+        assertThat(index.subtreeIds("unknown")).isEmpty();
+    }
+
+    @Test
+    void shouldTreatNodesWithMissingParentAsRoots() {
+        CvGraphIndex orphaned = new CvGraphIndex(List.of(
+            new CvNodeRefDto("a", NodeType.SKILL, "missing", "A"),
+            new CvNodeRefDto("b", NodeType.SKILL, "a", "B")
+        ));
+
+        assertThat(orphaned.ancestors("b").orElseThrow()).extracting(CvNodeRefDto::id).containsExactly("a");
+        assertThat(orphaned.stats("a").orElseThrow().descendantCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,118 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CategoryAttributes;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.domain.SkillAttributes;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodeProjection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CvGraphSnapshotTest {
+
+    private static final Instant WATERMARK = Instant.parse("2026-01-02T03:04:05.123456Z");
+
+    private static final List<CvNodeDto> CV_A = List.of(
+        new CvNodeDto("work", NodeType.CATEGORY, null, "Work", null,
+            new CategoryAttributes("work", Map.of()), 0, -40),
+        new CvNodeDto("job-ä", NodeType.ITEM, "work", "Job Ä", "First job",
+            new ItemAttributes("Acme", "2018 - 2020", null, null, List.of("Java"), Map.of("isDraft", true)),
+            null, 120),
+        new CvNodeDto("java", NodeType.SKILL, "job-ä", "Java", null,
+            new SkillAttributes(null, null, Map.of()), null, null));
+
+    // Ids are unique per CV only: "work" is in both
+    private static final List<CvNodeDto> CV_B = List.of(
+        new CvNodeDto("b-root", NodeType.CATEGORY, null, "B", 5, 5),
+        new CvNodeDto("work", NodeType.CATEGORY, "b-root", "Work B", 6, 6));
+
+    @TempDir
+    Path dir;
+
+    private Path write(Path file, List<CvNodeDto> a, List<CvNodeDto> b) throws IOException {
+        try (CvGraphSnapshot.Writer out = new CvGraphSnapshot.Writer(file)) {
+            out.add("a", a);
+            out.add("b", b);
+            out.finish(WATERMARK);
+        }
+        return file;
+    }
+
+    @Test
+    void shouldReadWhatWasWritten() throws IOException {
+        CvGraphSnapshot snapshot = CvGraphSnapshot.open(write(dir.resolve("graph.snapshot"), CV_A, CV_B));
+
+        assertThat(snapshot.watermark()).isEqualTo(WATERMARK);
+        assertThat(snapshot.cvIds()).containsExactly("a", "b");
+        assertThat(snapshot.nodeCount()).isEqualTo(5);
+        assertThat(snapshot.nodeCount("a")).isEqualTo(3);
+        assertThat(snapshot.nodes("a", NodeProjection.FULL)).isEqualTo(CV_A);
+        assertThat(snapshot.nodes("b", NodeProjection.FULL)).isEqualTo(CV_B);
+        assertThat(snapshot.nodes("missing", NodeProjection.FULL)).isEmpty();
+        assertThat(snapshot.nodes("a", NodeProjection.SUMMARY).get(1))
+            .isEqualTo(new CvNodeDto("job-ä", NodeType.ITEM, "work", "Job Ä", null, 120));
+        assertThat(dir).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void shouldFindNodesByIdWithinTheirCv() throws IOException {
+        CvGraphSnapshot snapshot = CvGraphSnapshot.open(write(dir.resolve("graph.snapshot"), CV_A, CV_B));
+
+        for (CvNodeDto node : CV_A) {
+            assertThat(snapshot.node("a", node.id(), NodeProjection.FULL)).contains(node);
+        }
+        assertThat(snapshot.node("b", "b-root", NodeProjection.FULL)).contains(CV_B.getFirst());
+        assertThat(snapshot.node("b", "work", NodeProjection.FULL)).contains(CV_B.get(1));
+        assertThat(snapshot.node("b", "java", NodeProjection.FULL)).isEmpty();
+        assertThat(snapshot.node("a", "job", NodeProjection.FULL)).isEmpty();
+        assertThat(snapshot.node("a", "zzz", NodeProjection.FULL)).isEmpty();
+    }
+
+    @Test
+    void shouldCopyCvsFromPreviousSnapshot() throws IOException {
+        CvGraphSnapshot previous = CvGraphSnapshot.open(write(dir.resolve("old.snapshot"), CV_A, CV_B));
+        List<CvNodeDto> changedB = List.of(CV_B.getFirst(),
+            new CvNodeDto("b-child", NodeType.SKILL, "b-root", "Child", 1, 2));
+
+        Path file = dir.resolve("new.snapshot");
+        try (CvGraphSnapshot.Writer out = new CvGraphSnapshot.Writer(file)) {
+            out.add("b", changedB);
+            out.copy(previous, "a");
+            out.finish(WATERMARK.plusSeconds(60));
+        }
+        CvGraphSnapshot snapshot = CvGraphSnapshot.open(file);
+
+        assertThat(snapshot.nodes("a", NodeProjection.FULL)).isEqualTo(CV_A);
+        assertThat(snapshot.nodes("b", NodeProjection.SUMMARY)).isEqualTo(changedB);
+        assertThat(snapshot.node("a", "java", NodeProjection.FULL)).contains(CV_A.get(2));
+        assertThat(snapshot.node("a", "work", NodeProjection.FULL)).contains(CV_A.getFirst());
+        assertThat(snapshot.node("b", "b-child", NodeProjection.FULL)).contains(changedB.get(1));
+    }
+
+    @Test
+    void shouldRejectCorruptAndForeignFiles() throws IOException {
+        Path file = write(dir.resolve("graph.snapshot"), CV_A, CV_B);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(CvGraphSnapshot.HEADER_SIZE + 10);
+            int b = raf.read();
+            raf.seek(CvGraphSnapshot.HEADER_SIZE + 10);
+            raf.write(b ^ 1);
+        }
+        assertThatThrownBy(() -> CvGraphSnapshot.open(file)).hasMessageContaining("checksum");
+
+        Path other = Files.writeString(dir.resolve("other"), "x".repeat(100));
+        assertThatThrownBy(() -> CvGraphSnapshot.open(other)).hasMessageContaining("Not a graph snapshot");
+    }
+}
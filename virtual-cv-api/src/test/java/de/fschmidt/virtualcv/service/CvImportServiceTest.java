@@ -0,0 +1,212 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.config.SecondLevelCacheConfig;
+import de.fschmidt.virtualcv.domain.CvNode;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.ImportResultDto;
+import de.fschmidt.virtualcv.dto.ImportResultDto.ImportMode;
+import de.fschmidt.virtualcv.dto.TechnologyStatsDto.TechnologyCount;
+import de.fschmidt.virtualcv.repository.CvNodeRepository;
+import de.fschmidt.virtualcv.repository.CvNodeRepository.ProficiencyCount;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Imports commit (each call runs in its own transaction), as the staging table and the deferred
+ * path and stats maintenance only live until the end of the import's transaction.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CvImportService.class, SecondLevelCacheConfig.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CvImportServiceTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private CvImportService importService;
+
+    @Autowired
+    private CvNodeRepository repository;
+
+    // Every test imports into a CV of its own
+    private final String cvId = "cv-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private ImportResultDto importJson(String cvId, ImportMode mode, String json) {
+        return importService.importNodes(cvId,
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), false, mode);
+    }
+
+    private ImportResultDto importJson(ImportMode mode, String json) {
+        return importJson(cvId, mode, json);
+    }
+
+    private List<CvNodeDto> nodes() {
+        return repository.findAllAsDto(cvId);
+    }
+
+    @Test
+    void shouldUpsertIntoExistingGraph() {
+        // Given
+        importJson(ImportMode.REPLACE, """
+                [{"id": "root", "type": "PROFILE", "label": "Root"},
+                 {"id": "java", "type": "ITEM", "parentId": "root", "label": "Java",
+                  "attributes": {"technologies": ["Java"]}},
+                 {"id": "kept", "type": "CATEGORY", "parentId": "root", "label": "Kept"}]
+                """);
+
+        // When - the existing node changes its type, the new one hangs below a node not in the payload
+        ImportResultDto result = importJson(ImportMode.UPSERT, """
+                [{"id": "java", "type": "SKILL", "parentId": "root", "label": "Java",
+                  "attributes": {"proficiencyLevel": "expert"}},
+                 {"id": "new", "type": "SKILL", "parentId": "kept", "label": "New"}]
+                """);
+
+        // Then
+        assertThat(result).isEqualTo(new ImportResultDto(2, ImportMode.UPSERT));
+        assertThat(nodes()).extracting(CvNodeDto::id, CvNodeDto::type, CvNodeDto::parentId).containsExactlyInAnyOrder(
+                tuple("root", NodeType.PROFILE, null),
+                tuple("java", NodeType.SKILL, "root"),
+                tuple("kept", NodeType.CATEGORY, "root"),
+                tuple("new", NodeType.SKILL, "kept"));
+        assertThat(repository.findTechnologyStats(cvId)).isEmpty();
+        assertThat(repository.findProficiencyStats(cvId)).containsExactly(new ProficiencyCount("expert", 1));
+    }
+
+    @Test
+    void shouldReplaceWholeGraph() {
+        // Given
+        importJson(ImportMode.REPLACE, """
+                [{"id": "old", "type": "PROFILE", "label": "Old"},
+                 {"id": "skill", "type": "SKILL", "parentId": "old", "label": "Skill",
+                  "attributes": {"proficiencyLevel": "expert"}}]
+                """);
+
+        // When
+        importJson(ImportMode.REPLACE, """
+                {"nodes": [{"id": "new", "type": "PROFILE", "label": "New"}]}
+                """);
+
+        // Then
+        assertThat(nodes()).extracting(CvNodeDto::id).containsExactly("new");
+        assertThat(repository.findProficiencyStats(cvId)).isEmpty();
+    }
+
+    @Test
+    void shouldImportTheSameIdsIntoAnotherCv() {
+        // Given - an exported CV
+        String json = """
+                [{"id": "root", "type": "PROFILE", "label": "Root"},
+                 {"id": "work", "type": "CATEGORY", "parentId": "root", "label": "Work"}]
+                """;
+        importJson(ImportMode.REPLACE, json);
+        String copy = cvId + "-copy";
+
+        // When - imported as another CV and changed there
+        importJson(copy, ImportMode.UPSERT, json);
+        importJson(copy, ImportMode.UPSERT, """
+                [{"id": "work", "type": "CATEGORY", "parentId": "root", "label": "Jobs"}]
+                """);
+
+        // Then - each CV keeps its own nodes and paths
+        assertThat(nodes()).extracting(CvNodeDto::id, CvNodeDto::label)
+                .containsExactly(tuple("root", "Root"), tuple("work", "Work"));
+        assertThat(repository.findAllAsDto(copy)).extracting(CvNodeDto::id, CvNodeDto::label)
+                .containsExactly(tuple("root", "Root"), tuple("work", "Jobs"));
+        assertThat(repository.findDescendantsAsDto(cvId, "root")).extracting(CvNodeDto::id).containsExactly("work");
+        assertThat(repository.findDescendantsAsDto(copy, "root")).extracting(CvNodeDto::id).containsExactly("work");
+    }
+
+    @Test
+    void shouldRejectUnknownParentWithoutWriting() {
+        // Given
+        importJson(ImportMode.REPLACE, """
+                [{"id": "root", "type": "PROFILE", "label": "Root"}]
+                """);
+
+        // When / Then - in both modes
+        for (ImportMode mode : ImportMode.values()) {
+            assertThatThrownBy(() -> importJson(mode, """
+                    [{"id": "orphan", "type": "SKILL", "parentId": "missing", "label": "Orphan"}]
+                    """))
+                    .isInstanceOf(CvImportException.class)
+                    .hasMessageContaining("Unknown parent ids").hasMessageContaining("missing");
+        }
+        assertThat(nodes()).extracting(CvNodeDto::id).containsExactly("root");
+    }
+
+    @Test
+    void shouldRejectParentCycleWithoutWriting() {
+        // Given
+        importJson(ImportMode.REPLACE, """
+                [{"id": "root", "type": "PROFILE", "label": "Root"}]
+                """);
+
+        // When / Then - every parent exists, but a and b are not reachable from a root
+        assertThatThrownBy(() -> importJson(ImportMode.UPSERT, """
+                [{"id": "a", "type": "CATEGORY", "parentId": "b", "label": "A"},
+                 {"id": "b", "type": "CATEGORY", "parentId": "a", "label": "B"}]
+                """))
+                .isInstanceOf(CvImportException.class)
+                .hasMessageContaining("Parent cycle");
+        assertThat(nodes()).extracting(CvNodeDto::id).containsExactly("root");
+    }
+
+    @Test
+    void shouldRebuildDeferredPathsAndStats() {
+        // When - children come before their parent, which the path triggers could not handle
+        importJson(ImportMode.REPLACE, """
+                [{"id": "item", "type": "ITEM", "parentId": "category", "label": "Item",
+                  "attributes": {"dateRange": "2018 - Present", "technologies": ["Java", "Go"]}},
+                 {"id": "category", "type": "CATEGORY", "parentId": "root", "label": "Category"},
+                 {"id": "root", "type": "PROFILE", "label": "Root"}]
+                """);
+
+        // Then
+        assertThat(repository.findDescendantsAsDto(cvId, "root")).extracting(CvNodeDto::id)
+                .containsExactlyInAnyOrder("category", "item");
+        assertThat(repository.findTechnologyStats(cvId)).containsExactly(
+                new TechnologyCount("Go", 1, 2018, 2018, true),
+                new TechnologyCount("Java", 1, 2018, 2018, true));
+
+        // And - the triggers are back on for later writes
+        CvNode later = new CvNode("later", NodeType.ITEM, "Later");
+        later.setCvId(cvId);
+        later.setParentId("category");
+        later.setAttributes(new ItemAttributes(null, "2010 - 2012", null, null, List.of("Java"), Map.of()));
+        repository.saveAndFlush(later);
+
+        assertThat(repository.findDescendantsAsDto(cvId, "category")).extracting(CvNodeDto::id)
+                .containsExactlyInAnyOrder("item", "later");
+        assertThat(repository.findTechnologyStats(cvId)).containsExactly(
+                new TechnologyCount("Java", 2, 2010, 2018, true),
+                new TechnologyCount("Go", 1, 2018, 2018, true));
+    }
+}
@@ -0,0 +1,58 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvLayoutDto;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodeState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CvLayoutServiceTest {
+
+    private final CvSnapshotService snapshots = mock(CvSnapshotService.class);
+    private final CvGraphVersion graphVersion = new CvGraphVersion();
+    private final CvLayoutService service =
+            new CvLayoutService(snapshots, new GraphLayoutEngine(), graphVersion, 16);
+
+    @Test
+    void shouldServeCachedLayoutUntilTheGraphChanges() {
+        // Given
+        when(snapshots.exists("cv")).thenReturn(true);
+        when(snapshots.loadAllNodes("cv")).thenReturn(List.of(
+                new CvNodeDto("profile", NodeType.PROFILE, null, "Jane", null, null)));
+
+        // When
+        CvLayoutDto first = service.getLayout("cv", null).orElseThrow();
+        CvLayoutDto second = service.getLayout("cv", null).orElseThrow();
+
+        // Then - computed once
+        assertThat(second).isSameAs(first);
+        assertThat(first.positions()).isNotEmpty();
+        verify(snapshots, times(1)).loadAllNodes("cv");
+
+        // When - another state and a newer version are computed separately
+        service.getLayout("cv", NodeState.DETAILED).orElseThrow();
+        graphVersion.onNodeChanged(CvNodeChangedEvent.deleted("cv", "skill"));
+        CvLayoutDto changed = service.getLayout("cv", null).orElseThrow();
+
+        // Then
+        assertThat(changed.version()).isEqualTo(1);
+        verify(snapshots, times(3)).loadAllNodes("cv");
+    }
+
+    @Test
+    void shouldNotComputeLayoutForCvThatDoesNotExist() {
+        assertThat(service.getLayout("unknown", null)).isEmpty();
+        assertThat(service.getLayout("unknown", NodeState.DETAILED)).isEmpty();
+
+        verify(snapshots, never()).loadAllNodes("unknown");
+    }
+}
@@ -0,0 +1,78 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.config.ReadRouting;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CvSearchCacheTest {
+
+    private static final List<CvNodeDto> RESULTS = List.of(new CvNodeDto("java", NodeType.SKILL, null, "Java", 0, 0));
+
+    private final CvGraphVersion graphVersion = new CvGraphVersion();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CvSearchCache cache(Duration replicaMaxLag) {
+        return new CvSearchCache(graphVersion, meterRegistry, 100, DataSize.ofMegabytes(1), replicaMaxLag);
+    }
+
+    @Test
+    void shouldServeRepeatedSearchUntilTheGraphChanges() {
+        CvSearchCache cache = cache(Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("cv", "java", 50, 0, () -> { loads.incrementAndGet(); return RESULTS; });
+        assertThat(cache.get("cv", "java", 50, 0, () -> { loads.incrementAndGet(); return RESULTS; }))
+                .isEqualTo(RESULTS);
+        cache.get("cv", "java", 50, 50, () -> { loads.incrementAndGet(); return List.of(); });
+        assertThat(loads).hasValue(2);
+
+        graphVersion.onNodeChanged(CvNodeChangedEvent.deleted("cv", "java"));
+        cache.get("cv", "java", 50, 0, () -> { loads.incrementAndGet(); return List.of(); });
+        assertThat(loads).hasValue(3);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "cv-search").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReadFromPrimaryOnlyRightAfterAChange() {
+        List<Boolean> onPrimary = new ArrayList<>();
+        CvSearchCache cache = cache(Duration.ofHours(1));
+
+        cache.get("cv", "a", 50, 0, () -> { onPrimary.add(ReadRouting.primaryRequired()); return RESULTS; });
+        graphVersion.onNodeChanged(CvNodeChangedEvent.deleted("cv", "java"));
+        cache.get("cv", "b", 50, 0, () -> { onPrimary.add(ReadRouting.primaryRequired()); return RESULTS; });
+        cache(Duration.ZERO).get("cv", "c", 50, 0, () -> { onPrimary.add(ReadRouting.primaryRequired()); return RESULTS; });
+
+        assertThat(onPrimary).containsExactly(false, true, false);
+    }
+
+    @Test
+    void shouldBoundEntryCount() {
+        CvSearchCache cache = new CvSearchCache(graphVersion, meterRegistry, 10, DataSize.ofMegabytes(1),
+                Duration.ZERO);
+        for (int i = 0; i < 1000; i++) {
+            cache.get("cv", "q" + i, 50, 0, () -> RESULTS);
+        }
+
+        // Eviction runs asynchronously
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (size() > 10 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(size()).isLessThanOrEqualTo(10);
+    }
+
+    private double size() {
+        return meterRegistry.get("cache.size").tag("cache", "cv-search").gauge().value();
+    }
+}
@@ -0,0 +1,86 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CvStateCacheTest {
+
+    private final CvSnapshotService snapshots = mock(CvSnapshotService.class);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    // State: the ids of created nodes; a delete cannot be patched
+    private final CvStateCache<List<String>> cache = new CvStateCache<>(snapshots, 2,
+            cvId -> {
+                loads.incrementAndGet();
+                return new ArrayList<>(List.of("loaded"));
+            },
+            (ids, event) -> event.change() == CvNodeChangedEvent.Change.CREATED && ids.add(event.nodeId()));
+
+    private List<String> read(String cvId) {
+        return cache.read(cvId, List::copyOf, null);
+    }
+
+    private static CvNodeChangedEvent created(String cvId, String id) {
+        return CvNodeChangedEvent.created(cvId, new CvNodeDto(id, NodeType.SKILL, null, id, null, null));
+    }
+
+    @Test
+    void shouldLoadOnceAndPatchFromEvents() {
+        when(snapshots.exists("cv")).thenReturn(true);
+        // Before the first read: the load sees the change
+        cache.apply(created("cv", "early"));
+
+        assertThat(read("cv")).containsExactly("loaded");
+        cache.apply(created("cv", "java"));
+        cache.apply(created("other", "kotlin"));
+
+        assertThat(read("cv")).containsExactly("loaded", "java");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldReloadAfterImportOrUnpatchableChange() {
+        when(snapshots.exists("cv")).thenReturn(true);
+        read("cv");
+
+        cache.apply(CvNodeChangedEvent.deleted("cv", "loaded"));
+        assertThat(read("cv")).containsExactly("loaded");
+        cache.apply(created("cv", "java"));
+        cache.apply(CvNodeChangedEvent.imported("cv"));
+        assertThat(read("cv")).containsExactly("loaded");
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void shouldNotSetUpStateForCvThatDoesNotExist() {
+        assertThat(read("unknown")).isNull();
+
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void shouldKeepOnlyRecentlyUsedCvs() {
+        when(snapshots.exists("a")).thenReturn(true);
+        when(snapshots.exists("b")).thenReturn(true);
+        when(snapshots.exists("c")).thenReturn(true);
+        read("a");
+        read("b");
+        read("a");
+        read("c");
+
+        read("a");
+        assertThat(loads).hasValue(3);
+        read("b");
+        assertThat(loads).hasValue(4);
+    }
+}
@@ -0,0 +1,42 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CvSuggestServiceTest {
+
+    private final CvSnapshotService snapshots = mock(CvSnapshotService.class);
+    private final CvSuggestService service = new CvSuggestService(snapshots, 16);
+
+    @Test
+    void shouldNotLoadCvThatDoesNotExist() {
+        assertThat(service.suggest("unknown", "ja", 5)).isEmpty();
+        assertThat(service.suggest("unknown", "ja", 5)).isEmpty();
+
+        verify(snapshots, times(2)).exists("unknown");
+        verify(snapshots, never()).loadAllNodes("unknown");
+    }
+
+    @Test
+    void shouldLoadExistingCvOnce() {
+        when(snapshots.exists("cv")).thenReturn(true);
+        when(snapshots.loadAllNodes("cv")).thenReturn(List.of(
+                new CvNodeDto("java", NodeType.SKILL, null, "Java", null, null)));
+
+        assertThat(service.suggest("cv", "ja", 5)).isNotEmpty();
+        assertThat(service.suggest("cv", "ja", 5)).isNotEmpty();
+
+        verify(snapshots, times(1)).exists("cv");
+        verify(snapshots, times(1)).loadAllNodes("cv");
+    }
+}
@@ -0,0 +1,64 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.BoundingBox;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CvViewportIndexTest {
+
+    private static CvNodeDto node(String id, Integer x, Integer y) {
+        return new CvNodeDto(id, NodeType.SKILL, null, id, x, y);
+    }
+
+    @Test
+    void shouldReturnNodesInsideBoxInInputOrder() {
+        CvViewportIndex index = new CvViewportIndex(List.of(
+            node("far", 900, 900),
+            node("edge", 100, 100),
+            node("unpositioned", null, 50),
+            node("negative", -30, -260),
+            node("inside", 50, 20)
+        ), 64);
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.within(new BoundingBox(-50, -300, 100, 100)))
+            .extracting(CvNodeDto::id).containsExactly("edge", "negative", "inside");
+        assertThat(index.within(new BoundingBox(101, 101, 899, 899))).isEmpty();
+    }
+
+    @Test
+    void shouldMatchLinearScan() {
+        Random random = new Random(42);
+        List<CvNodeDto> nodes = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            nodes.add(node("n" + i, random.nextInt(-5_000, 5_000), random.nextInt(-5_000, 5_000)));
+        }
+        CvViewportIndex index = new CvViewportIndex(nodes, 256);
+
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(-6_000, 6_000);
+            int y = random.nextInt(-6_000, 6_000);
+            // Up to the whole canvas, which takes the linear path
+            int size = i % 10 == 0 ? 1_000_000 : random.nextInt(2_000);
+            BoundingBox box = new BoundingBox(x, y, x + size, y + size);
+
+            assertThat(index.within(box))
+                .isEqualTo(nodes.stream().filter(n -> box.contains(n.positionX(), n.positionY())).toList());
+        }
+    }
+
+    @Test
+    void shouldParseCornersInAnyOrder() {
+        assertThat(BoundingBox.fromValue("10, 20,-5,0")).isEqualTo(new BoundingBox(-5, 0, 10, 20));
+        assertThatThrownBy(() -> BoundingBox.fromValue("1,2,3")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BoundingBox.fromValue("1,2,3,x")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,88 @@
+package de.fschmidt.virtualcv.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fschmidt.virtualcv.config.SecondLevelCacheConfig;
+import de.fschmidt.virtualcv.domain.CvNode;
+import de.fschmidt.virtualcv.repository.CvNodeRepository;
+import de.fschmidt.virtualcv.service.CvWarmUpRunner.State;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs outside a test transaction, so the warm-up's own transaction is the one that is rolled back.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CvNodeService.class, SecondLevelCacheConfig.class, CvWarmUpRunnerTest.CommittedEvents.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CvWarmUpRunnerTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    // Collects events the way the real listeners receive them: after commit
+    @Component
+    static class CommittedEvents {
+
+        final List<CvNodeChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @TransactionalEventListener
+        void onNodeChanged(CvNodeChangedEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Autowired
+    private CvNodeService service;
+
+    @Autowired
+    private CvNodeRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CommittedEvents committed;
+
+    @Test
+    void shouldRollBackItsWrites() {
+        // Given
+        CvWarmUpRunner runner = new CvWarmUpRunner(service, objectMapper, transactionManager,
+                true, CvNode.DEFAULT_CV_ID, 3, Duration.ofSeconds(30), "api");
+
+        // When
+        runner.warmUp();
+
+        // Then - every iteration ran its create, update and delete, none of which was committed
+        assertThat(runner.progress().state()).isEqualTo(State.DONE);
+        assertThat(runner.progress().iterations()).isEqualTo(3);
+        assertThat(repository.existsByCvId("warm-up")).isFalse();
+        assertThat(committed.events).isEmpty();
+    }
+}
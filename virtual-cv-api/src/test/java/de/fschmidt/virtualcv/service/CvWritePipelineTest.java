@@ -0,0 +1,131 @@
+package de.fschmidt.virtualcv.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CvWritePipelineTest {
+
+    private final CountingTransactionManager transactions = new CountingTransactionManager();
+    private final CvWritePipeline pipeline = pipeline(true);
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        pipeline.destroy();
+    }
+
+    @Test
+    void shouldCommitQueuedCommandsTogether() throws Exception {
+        CountDownLatch release = blockWriter();
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int value = i;
+            results.add(pipeline.submit(() -> value));
+        }
+        release.countDown();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i);
+        }
+        // The blocking command's own transaction, then one for the whole burst
+        assertThat(transactions.commits).isEqualTo(2);
+    }
+
+    @Test
+    void shouldIsolateFailingCommand() throws Exception {
+        CountDownLatch release = blockWriter();
+
+        CompletableFuture<String> before = pipeline.submit(() -> "before");
+        CompletableFuture<String> failing = pipeline.submit(() -> {
+            throw new InvalidMoveException("cycle");
+        });
+        CompletableFuture<String> after = pipeline.submit(() -> "after");
+        release.countDown();
+
+        assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("before");
+        assertThat(after.get(5, TimeUnit.SECONDS)).isEqualTo("after");
+        assertThatThrownBy(() -> pipeline.execute(() -> {
+            throw new InvalidMoveException("cycle");
+        })).isInstanceOf(InvalidMoveException.class);
+        assertThat(failing).isCompletedExceptionally();
+        // The group was rolled back once and committed without the failing command
+        assertThat(transactions.rollbacks).isEqualTo(2);
+        assertThat(transactions.commits).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRunOnCallerThreadWhenDisabled() {
+        CvWritePipeline direct = pipeline(false);
+
+        assertThat(direct.execute(() -> Thread.currentThread().getName()))
+                .isEqualTo(Thread.currentThread().getName());
+        assertThat(transactions.commits).isZero();
+    }
+
+    /**
+     * Occupies the writer with a command that waits for the returned latch, so that the commands
+     * submitted meanwhile queue up.
+     */
+    private CountDownLatch blockWriter() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline.submit(await(started, release));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return release;
+    }
+
+    private static Supplier<Void> await(CountDownLatch started, CountDownLatch release) {
+        return () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        };
+    }
+
+    private CvWritePipeline pipeline(boolean enabled) {
+        return new CvWritePipeline(transactions, enabled, 32, Duration.ofMillis(2), 16, Duration.ofSeconds(1));
+    }
+
+    private static final class CountingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private volatile int commits;
+        private volatile int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+    }
+}
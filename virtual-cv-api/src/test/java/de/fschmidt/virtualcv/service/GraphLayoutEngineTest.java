@@ -0,0 +1,80 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.NodeAttributes;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.dto.NodePositionDto;
+import de.fschmidt.virtualcv.dto.NodeState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GraphLayoutEngineTest {
+
+    private final GraphLayoutEngine engine = new GraphLayoutEngine();
+
+    private static CvNodeDto node(String id, NodeType type, String parentId) {
+        return new CvNodeDto(id, type, parentId, id, null, (NodeAttributes) null, null, null);
+    }
+
+    private static Map<String, NodePositionDto> byId(List<NodePositionDto> positions) {
+        return positions.stream().collect(Collectors.toMap(NodePositionDto::nodeId, Function.identity()));
+    }
+
+    @Test
+    void shouldMatchUiJitter() {
+        // Reference values computed with jitter() from layout.service.ts
+        assertThat(GraphLayoutEngine.jitter("work", 8)).isCloseTo(-0.72, within(1e-9));
+        assertThat(GraphLayoutEngine.jitter("skill-java", 6)).isCloseTo(-0.72, within(1e-9));
+        assertThat(GraphLayoutEngine.jitter("job-ingenious-y", 8)).isCloseTo(-2.96, within(1e-9));
+    }
+
+    @Test
+    void shouldPlaceCategoriesAroundProfileAndKeepStoredPositions() {
+        List<CvNodeDto> nodes = List.of(
+            node("profile", NodeType.PROFILE, null),
+            node("work", NodeType.CATEGORY, "profile"),
+            new CvNodeDto("skills", NodeType.CATEGORY, "profile", "Skills", null, (NodeAttributes) null, 900, 100),
+            node("job", NodeType.ITEM, "work"),
+            node("java", NodeType.SKILL_GROUP, "skills")
+        );
+
+        Map<String, NodePositionDto> positions = byId(engine.compute(nodes, NodeState.DORMANT));
+
+        assertThat(positions).hasSize(5);
+        assertThat(positions.get("profile").x()).isEqualTo(400);
+        assertThat(positions.get("work").x()).isLessThan(400);
+        assertThat(positions.get("job").x()).isLessThan(positions.get("work").x());
+        assertThat(positions.get("skills").x()).isEqualTo(900);
+        assertThat(positions.get("skills").y()).isEqualTo(100);
+        assertThat(positions.get("java").x()).isGreaterThan(900);
+    }
+
+    @Test
+    void shouldLayOutLargeGraphsInParallel() {
+        List<CvNodeDto> nodes = new ArrayList<>();
+        nodes.add(node("profile", NodeType.PROFILE, null));
+        for (String category : List.of("work", "skills")) {
+            nodes.add(node(category, NodeType.CATEGORY, "profile"));
+            for (int i = 0; i < 20; i++) {
+                String group = category + "-" + i;
+                nodes.add(node(group, NodeType.SKILL_GROUP, category));
+                for (int j = 0; j < 20; j++) {
+                    nodes.add(node(group + "-" + j, NodeType.SKILL, group));
+                }
+            }
+        }
+
+        List<NodePositionDto> positions = engine.compute(nodes, null);
+
+        assertThat(positions).hasSize(nodes.size());
+        assertThat(byId(positions).get("skills-3-4").x()).isGreaterThan(byId(positions).get("skills-3").x());
+    }
+}
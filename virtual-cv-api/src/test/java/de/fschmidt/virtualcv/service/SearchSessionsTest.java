@@ -0,0 +1,45 @@
+package de.fschmidt.virtualcv.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchSessionsTest {
+
+    private final SearchSessions sessions = new SearchSessions();
+
+    @Test
+    void shouldCancelPreviousSearchOfSameSession() {
+        SearchSessions.Search first = sessions.start("tab-1");
+        SearchSessions.Search other = sessions.start("tab-2");
+        SearchSessions.Search second = sessions.start("tab-1");
+
+        assertThat(first.isCancelled()).isTrue();
+        assertThat(other.isCancelled()).isFalse();
+        assertThat(second.isCancelled()).isFalse();
+        assertThatThrownBy(() -> first.attach(null)).isInstanceOf(SearchCancelledException.class);
+    }
+
+    @Test
+    void shouldNotCancelFinishedSearch() {
+        SearchSessions.Search first = sessions.start("tab-1");
+        sessions.finish("tab-1", first);
+        SearchSessions.Search second = sessions.start("tab-1");
+
+        assertThat(first.isCancelled()).isFalse();
+
+        // A search finishing late does not unregister the newer one
+        sessions.finish("tab-1", first);
+        sessions.start("tab-1");
+        assertThat(second.isCancelled()).isTrue();
+    }
+
+    @Test
+    void shouldNeverCancelSearchWithoutSession() {
+        SearchSessions.Search first = sessions.start(null);
+        sessions.start(null);
+
+        assertThat(first.isCancelled()).isFalse();
+    }
+}
@@ -0,0 +1,126 @@
+package de.fschmidt.virtualcv.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+
+        List<Future<String>> results = callConcurrently(flight, "java", 5, () -> {
+            await(release);
+            return "result-" + loads.incrementAndGet();
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldNotShareFailureBeyondCallsInFlight() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+
+        List<Future<String>> results = callConcurrently(flight, "java", 3, () -> {
+            await(release);
+            loads.incrementAndGet();
+            throw new IllegalStateException("database down");
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("database down");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(flight.execute("java", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void shouldLoadItselfWhenWaitingTimesOut() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(50));
+        CompletableFuture<String> stuck = CompletableFuture.supplyAsync(
+                () -> flight.execute("java", () -> {
+                    await(release);
+                    return "stuck";
+                }), executor);
+        waitUntilRunning();
+
+        assertThat(flight.execute("java", () -> "own")).isEqualTo("own");
+        release.countDown();
+        assertThat(stuck.get(5, TimeUnit.SECONDS)).isEqualTo("stuck");
+    }
+
+    @Test
+    void shouldNotCoalesceDifferentKeys() {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+
+        assertThat(flight.execute("java", () -> "a")).isEqualTo("a");
+        assertThat(flight.execute("kafka", () -> "b")).isEqualTo("b");
+    }
+
+    /**
+     * Starts one leader and waits until it runs the loader, then starts the followers and waits
+     * until they are blocked on the leader's result.
+     */
+    private List<Future<String>> callConcurrently(SingleFlight<String, String> flight, String key, int callers,
+                                                  Supplier<String> loader) throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> flight.execute(key, loader)));
+        waitUntilRunning();
+        List<Thread> followers = new ArrayList<>();
+        for (int i = 1; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                synchronized (followers) {
+                    followers.add(Thread.currentThread());
+                }
+                return flight.execute(key, loader);
+            }));
+        }
+        while (true) {
+            synchronized (followers) {
+                if (followers.size() == callers - 1
+                        && followers.stream().allMatch(t -> t.getState() == Thread.State.TIMED_WAITING)) {
+                    return results;
+                }
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitUntilRunning() throws InterruptedException {
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    // Called by loaders: signals that the load has started, then blocks until released
+    private void await(CountDownLatch latch) {
+        started.countDown();
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
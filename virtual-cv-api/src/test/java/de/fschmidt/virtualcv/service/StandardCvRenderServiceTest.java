@@ -0,0 +1,96 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import de.fschmidt.virtualcv.service.StandardCvRenderService.RenderedPage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StandardCvRenderServiceTest {
+
+    private final CvSnapshotService snapshots = mock(CvSnapshotService.class);
+    private final CvGraphVersion graphVersion = new CvGraphVersion();
+    private final StandardCvRenderService service =
+            new StandardCvRenderService(snapshots, new StandardCvRenderer(), graphVersion, 16);
+
+    private static List<CvNodeDto> profile(String name) {
+        return List.of(new CvNodeDto("profile", NodeType.PROFILE, null, name, null, null));
+    }
+
+    private RenderedPage page(String cvId) {
+        return service.getPage(cvId).orElseThrow();
+    }
+
+    // As delivered after commit: the version first, then the other listeners
+    private void commit(CvNodeChangedEvent event) {
+        graphVersion.onNodeChanged(event);
+        service.onNodeChanged(event);
+    }
+
+    @Test
+    void shouldServeCachedPageUntilTheGraphChanges() {
+        // Given
+        when(snapshots.exists("cv")).thenReturn(true);
+        when(snapshots.loadAllNodes("cv")).thenReturn(profile("Jane"), profile("Janet"));
+
+        // When
+        RenderedPage first = page("cv");
+        RenderedPage second = page("cv");
+
+        // Then - rendered once
+        assertThat(second).isSameAs(first);
+        assertThat(first.version()).isZero();
+        assertThat(first.etag()).startsWith("\"0-").endsWith("\"");
+        verify(snapshots, times(1)).loadAllNodes("cv");
+
+        // When - a committed command re-renders the cached page under the new version
+        commit(CvNodeChangedEvent.deleted("cv", "skill"));
+        RenderedPage changed = page("cv");
+
+        // Then
+        assertThat(changed.version()).isEqualTo(1);
+        assertThat(changed.etag()).startsWith("\"1-").isNotEqualTo(first.etag());
+        assertThat(new String(changed.body(), StandardCharsets.UTF_8)).contains("Janet");
+        assertThat(page("cv")).isSameAs(changed);
+        verify(snapshots, times(2)).loadAllNodes("cv");
+    }
+
+    @Test
+    void shouldRenderOutdatedPageOnRequest() {
+        // Given - the version moved on without the page being re-rendered yet
+        when(snapshots.exists("cv")).thenReturn(true);
+        when(snapshots.loadAllNodes("cv")).thenReturn(profile("Jane"), profile("Janet"));
+        RenderedPage first = page("cv");
+        graphVersion.onNodeChanged(CvNodeChangedEvent.deleted("cv", "skill"));
+
+        // When
+        RenderedPage page = page("cv");
+
+        // Then
+        assertThat(page.version()).isEqualTo(1);
+        assertThat(page.etag()).isNotEqualTo(first.etag());
+    }
+
+    @Test
+    void shouldNotRenderCvThatDoesNotExist() {
+        assertThat(service.getPage("unknown")).isEmpty();
+
+        verify(snapshots, never()).loadAllNodes("unknown");
+    }
+
+    @Test
+    void shouldNotRenderCvsThatAreNotServed() {
+        commit(CvNodeChangedEvent.deleted("other", "skill"));
+
+        verify(snapshots, never()).loadAllNodes("other");
+    }
+}
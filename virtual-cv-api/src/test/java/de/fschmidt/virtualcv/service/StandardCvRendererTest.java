@@ -0,0 +1,82 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.domain.CategoryAttributes;
+import de.fschmidt.virtualcv.domain.CvNode.NodeType;
+import de.fschmidt.virtualcv.domain.ItemAttributes;
+import de.fschmidt.virtualcv.domain.NodeAttributes;
+import de.fschmidt.virtualcv.domain.ProfileAttributes;
+import de.fschmidt.virtualcv.dto.CvNodeDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StandardCvRendererTest {
+
+    private final StandardCvRenderer renderer = new StandardCvRenderer();
+
+    private static CvNodeDto node(String id, NodeType type, String parentId, String label, String description,
+                                  NodeAttributes attributes) {
+        return new CvNodeDto(id, type, parentId, label, description, attributes, null, null);
+    }
+
+    private static CvNodeDto category(String sectionId) {
+        return node("cat-" + sectionId, NodeType.CATEGORY, "profile", sectionId, null,
+                new CategoryAttributes(sectionId, Map.of()));
+    }
+
+    @Test
+    void shouldRenderSectionsInUiOrder() {
+        // Given - categories in a different order than the UI's sections
+        List<CvNodeDto> nodes = List.of(
+                node("profile", NodeType.PROFILE, null, "Label", "About me", new ProfileAttributes(
+                        "Jane Doe", "Engineer", null, null, "jane@example.com", "Berlin", null, Map.of())),
+                category("languages"),
+                node("german", NodeType.ITEM, "cat-languages", "German\nNative", null, null),
+                category("skills"),
+                node("backend", NodeType.SKILL_GROUP, "cat-skills", "Backend", null, null),
+                node("java", NodeType.SKILL, "backend", "Java\n10 years", null, null),
+                category("work"),
+                node("acme", NodeType.ITEM, "cat-work", "Developer\nAcme", "Built things", new ItemAttributes(
+                        "Acme", "2018 - Present", null, List.of("Shipped"), List.of("Kotlin"), Map.of())));
+
+        // When
+        String html = renderer.render(nodes);
+
+        // Then
+        assertThat(html)
+                .startsWith("<!DOCTYPE html>")
+                .contains("<title>Jane Doe</title>", "<h1 class=\"cv-name\">Jane Doe</h1>",
+                        "<span class=\"cv-email\">jane@example.com</span>", "<p>About me</p>")
+                .containsSubsequence("Work Experience", "Technical Skills", "Languages")
+                .contains("<h3>Developer - Acme</h3>", "<p class=\"cv-item-meta\">Acme | 2018 - Present</p>",
+                        "<li>Shipped</li>", "<span class=\"cv-skill-tag\">Kotlin</span>")
+                .contains("<h3 class=\"cv-skill-group-title\">Backend</h3>",
+                        "<span class=\"cv-skill-tag\">Java 10 years</span>")
+                .contains("<span class=\"cv-language-name\">German</span>"
+                        + "<span class=\"cv-language-level\">Native</span>")
+                .doesNotContain("Education")
+                .endsWith("</html>");
+    }
+
+    @Test
+    void shouldEscapeNodeContent() {
+        List<CvNodeDto> nodes = List.of(
+                node("profile", NodeType.PROFILE, null, "<script>alert(1)</script>", "a & b", null));
+
+        String html = renderer.render(nodes);
+
+        assertThat(html)
+                .contains("<title>&lt;script&gt;alert(1)&lt;/script&gt;</title>", "<p>a &amp; b</p>")
+                .doesNotContain("<script>");
+    }
+
+    @Test
+    void shouldRenderPlaceholderWithoutProfile() {
+        String html = renderer.render(List.of(category("work")));
+
+        assertThat(html).contains("<title>CV</title>", "No profile data found").doesNotContain("<section");
+    }
+}
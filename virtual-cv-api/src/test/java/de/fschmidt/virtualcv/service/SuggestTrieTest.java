@@ -0,0 +1,64 @@
+package de.fschmidt.virtualcv.service;
+
+import de.fschmidt.virtualcv.dto.SuggestionDto;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestTrieTest {
+
+    private final SuggestTrie trie = new SuggestTrie();
+
+    @Test
+    void shouldRankCompletionsByWeight() {
+        trie.add("Java");
+        trie.add("JavaScript");
+        trie.add("Java");
+        trie.add("Jakarta EE");
+
+        assertThat(trie.complete("ja", 10)).containsExactly(
+                new SuggestionDto("Java", 2),
+                new SuggestionDto("Jakarta EE", 1),
+                new SuggestionDto("JavaScript", 1));
+        assertThat(trie.complete("JAVA", 1)).containsExactly(new SuggestionDto("Java", 2));
+    }
+
+    @Test
+    void shouldCompleteLaterWordsOnce() {
+        trie.add("Spring Boot");
+        trie.add("Java Jakarta");
+
+        assertThat(trie.complete("boo", 10)).containsExactly(new SuggestionDto("Spring Boot", 1));
+        assertThat(trie.complete("ja", 10)).containsExactly(new SuggestionDto("Java Jakarta", 1));
+    }
+
+    @Test
+    void shouldUpdateRankingIncrementally() {
+        trie.add("Kotlin");
+        trie.add("Kafka");
+        trie.add("Kafka");
+
+        trie.remove("Kafka");
+        trie.remove("Kafka");
+        trie.add("Kotlin");
+
+        assertThat(trie.complete("k", 10)).containsExactly(new SuggestionDto("Kotlin", 2));
+        assertThat(trie.complete("ka", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepOnlyTopSuggestions() {
+        for (int i = 0; i < 15; i++) {
+            for (int n = 0; n <= i; n++) {
+                trie.add("term" + i);
+            }
+        }
+
+        assertThat(trie.complete("term", 10)).hasSize(SuggestTrie.MAX_SUGGESTIONS)
+                .first().isEqualTo(new SuggestionDto("term14", 15));
+        assertThat(trie.complete("term1", 3)).extracting(SuggestionDto::text)
+                .containsExactly("term14", "term13", "term12");
+        assertThat(trie.complete("x", 10)).isEmpty();
+        assertThat(trie.complete("", 10)).isEmpty();
+    }
+}
@@ -31,6 +31,8 @@ import type {
 } from '../api/generated';
 import type { CvNodeDto, UpdateNodeCommand } from '../api/generated';
 
+const SEARCH_SESSION = crypto.randomUUID();
+
 // Map API node type to frontend node type
 function mapNodeType(apiType: CvNodeDtoType): CVNodeType {
   const mapping: Record<CvNodeDtoType, CVNodeType> = {
@@ -174,7 +176,8 @@ class ApiCVService implements CVService {
   }
 
   async searchNodes(query: string): Promise<CVNode[]> {
-    const response = await search({ q: query });
+    // A new search cancels this page's previous one on the server if it is still running
+    const response = await search({ q: query }, { headers: { 'X-Search-Session': SEARCH_SESSION } });
     return (response.data ?? []).map(mapApiNodeToFrontend);
   }
 